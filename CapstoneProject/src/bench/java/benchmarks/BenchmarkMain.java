@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs every *Benchmark class and publishes the JMH JSON result as target/jmh/&lt;commit&gt;.json,
+ * so framework overhead can be tracked per commit.
+ *
+ * -Dbench.include=&lt;regex&gt; narrows the set, -Dbench.forks=N changes the fork count.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get("target", "jmh", gitCommit() + ".json");
+        Files.createDirectories(out.getParent());
+
+        Options opt = new OptionsBuilder()
+            .include(System.getProperty("bench.include", ".*Benchmark.*"))
+            .forks(Integer.getInteger("bench.forks", 1))
+            .resultFormat(ResultFormatType.JSON)
+            .result(out.toString())
+            .build();
+        new Runner(opt).run();
+        System.out.println("DEBUG: JMH results written to " + out.toAbsolutePath());
+    }
+
+    private static String gitCommit() {
+        try {
+            Process p = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String sha = r.readLine();
+                if (p.waitFor() == 0 && sha != null && !sha.isBlank()) return sha.trim();
+            }
+        } catch (Exception ignored) {}
+        return "local";
+    }
+}
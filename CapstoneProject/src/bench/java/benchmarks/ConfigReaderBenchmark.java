@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.ConfigReader;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ConfigReaderBenchmark {
+
+    @Benchmark
+    public String loadProperties() {
+        ConfigReader.loadConfig("testdata/config.properties");
+        return ConfigReader.getProperty("url");
+    }
+
+    @Benchmark
+    public void loadSearchSheet(Blackhole bh) throws Exception {
+        ConfigReader.setExcelFile("testdata/Search.xlsx", "Search");
+        int rows = ConfigReader.getRowCount();
+        for (int i = 1; i <= rows; i++) bh.consume(ConfigReader.getCellData(i, 0));
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import pages.CartPage;
+import pages.ProductPage;
+import pages.SearchPage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page-object logic against the static bstackdemo fixture on an in-process HtmlUnit driver,
+ * i.e. framework cost without browser or network time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class PageObjectBenchmark {
+    private HtmlUnitDriver driver;
+    private SearchPage searchPage;
+    private CartPage cartPage;
+
+    @Setup(Level.Trial)
+    public void open() {
+        driver = new HtmlUnitDriver(true);
+        driver.get(PageObjectBenchmark.class.getClassLoader().getResource("fixtures/bstackdemo/index.html").toString());
+        searchPage = new SearchPage(driver);
+        cartPage = new CartPage(driver);
+        new ProductPage(driver).addProductToCartByName("iPhone 12 Mini");
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        driver.quit();
+    }
+
+    @Benchmark
+    public void shelfTitlesPerElement(Blackhole bh) {
+        for (WebElement e : searchPage.getProductTitles()) bh.consume(e.getText());
+    }
+
+    @Benchmark
+    public Object shelfItemsBulk() {
+        return searchPage.getShelfItems();
+    }
+
+    @Benchmark
+    public Object cartItemNames() {
+        return cartPage.getCartItemNames();
+    }
+
+    @Benchmark
+    public int cartQuantity() {
+        return cartPage.getQuantityForItem("iPhone 12 Mini");
+    }
+
+    @Benchmark
+    public String cartSubtotal() {
+        return cartPage.getSubtotal();
+    }
+}
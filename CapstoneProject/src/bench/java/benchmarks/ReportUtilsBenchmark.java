@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.ReportUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReportUtils logging and flushing. Both use fixed-size batches so the in-memory
+ * Extent model does not grow without bound during measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportUtilsBenchmark {
+
+    @State(Scope.Thread)
+    public static class FreshTest {
+        @Setup(Level.Iteration)
+        public void newTest() {
+            ReportUtils.flushReports();
+            ReportUtils.initReports();
+            ReportUtils.createTest("benchmark");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            ReportUtils.flushReports();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledReport {
+        @Param({"50"})
+        public int logsPerTest;
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            ReportUtils.initReports();
+            for (int t = 0; t < 10; t++) {
+                ReportUtils.createTest("benchmark-" + t);
+                for (int i = 0; i < logsPerTest; i++) ReportUtils.logInfo("step " + i);
+            }
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5, batchSize = 1000)
+    @Measurement(iterations = 10, batchSize = 1000)
+    public void logInfo(FreshTest state) {
+        ReportUtils.logInfo("Clicked add for product: iPhone 12 Mini");
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public void flushReports(FilledReport state) {
+        ReportUtils.flushReports();
+    }
+}
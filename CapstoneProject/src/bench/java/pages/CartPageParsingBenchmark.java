@@ -0,0 +1,26 @@
+package pages;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** CartPage quantity parsing on typical float-cart item text (lives in pages for package access). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class CartPageParsingBenchmark {
+    private final String labeled = "iPhone 12 Mini\nApple\nQuantity: 2\n$ 699.00\n-\n+";
+    private final String unlabeled = "Galaxy S9\nSamsung\n3\n$ 549.00";
+
+    @Benchmark
+    public int labeledQuantity() {
+        return CartPage.parseLabeledQuantity(labeled);
+    }
+
+    @Benchmark
+    public int looseNumberFallback() {
+        return CartPage.parseLooseNumber(unlabeled);
+    }
+}
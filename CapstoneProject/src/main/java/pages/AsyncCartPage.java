@@ -0,0 +1,47 @@
+package pages;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/** {@link CartPage} on an {@link AsyncSession}. */
+public class AsyncCartPage {
+    private final AsyncSession session;
+    private final CartPage page;
+
+    public AsyncCartPage(AsyncSession session) {
+        this.session = session;
+        this.page = new CartPage(session.getDriver());
+    }
+
+    public CompletableFuture<Void> openCart() {
+        return session.run(page::openCart);
+    }
+
+    public CompletableFuture<Boolean> isCartOpen() {
+        return session.submit(page::isCartOpen);
+    }
+
+    public CompletableFuture<List<String>> getCartItemNames() {
+        return session.submit(page::getCartItemNames);
+    }
+
+    public CompletableFuture<Boolean> isItemPresent(String partialName) {
+        return session.submit(() -> page.isItemPresent(partialName));
+    }
+
+    public CompletableFuture<Integer> getQuantityForItem(String partialName) {
+        return session.submit(() -> page.getQuantityForItem(partialName));
+    }
+
+    public CompletableFuture<Boolean> increaseQtyForItem(String partialName, int times) {
+        return session.submit(() -> page.increaseQtyForItem(partialName, times));
+    }
+
+    public CompletableFuture<String> getSubtotal() {
+        return session.submit(page::getSubtotal);
+    }
+
+    public CompletableFuture<Boolean> removeItemByName(String partialName) {
+        return session.submit(() -> page.removeItemByName(partialName));
+    }
+}
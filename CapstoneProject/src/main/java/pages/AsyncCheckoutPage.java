@@ -0,0 +1,46 @@
+package pages;
+
+import java.util.concurrent.CompletableFuture;
+
+/** {@link CheckoutPage} on an {@link AsyncSession}. */
+public class AsyncCheckoutPage {
+    private final AsyncSession session;
+    private final CheckoutPage page;
+
+    public AsyncCheckoutPage(AsyncSession session) {
+        this.session = session;
+        this.page = new CheckoutPage(session.getDriver());
+    }
+
+    public CompletableFuture<Void> waitForForm() {
+        return session.run(page::waitForForm);
+    }
+
+    public CompletableFuture<Void> fillFirstName(String firstName) {
+        return session.run(() -> page.fillFirstName(firstName));
+    }
+
+    public CompletableFuture<Void> fillLastName(String lastName) {
+        return session.run(() -> page.fillLastName(lastName));
+    }
+
+    public CompletableFuture<Void> fillAddress(String addr) {
+        return session.run(() -> page.fillAddress(addr));
+    }
+
+    public CompletableFuture<Void> fillProvince(String prov) {
+        return session.run(() -> page.fillProvince(prov));
+    }
+
+    public CompletableFuture<Void> fillPostalCode(String pc) {
+        return session.run(() -> page.fillPostalCode(pc));
+    }
+
+    public CompletableFuture<Void> fillShippingForm(String fn, String ln, String addr, String prov, String pc) {
+        return session.run(() -> page.fillShippingForm(fn, ln, addr, prov, pc));
+    }
+
+    public CompletableFuture<Void> submitShipping() {
+        return session.run(page::submitShipping);
+    }
+}
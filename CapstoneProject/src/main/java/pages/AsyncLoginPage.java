@@ -0,0 +1,48 @@
+package pages;
+
+import java.util.concurrent.CompletableFuture;
+
+/** {@link LoginPage} on an {@link AsyncSession}: every call returns immediately with a future. */
+public class AsyncLoginPage {
+    private final AsyncSession session;
+    private final LoginPage page;
+
+    public AsyncLoginPage(AsyncSession session) {
+        this.session = session;
+        this.page = new LoginPage(session.getDriver());
+    }
+
+    public CompletableFuture<Void> openLoginForm() {
+        return session.run(page::openLoginForm);
+    }
+
+    public CompletableFuture<Void> selectUsername(String username) {
+        return session.run(() -> page.selectUsername(username));
+    }
+
+    public CompletableFuture<Void> selectPassword(String password) {
+        return session.run(() -> page.selectPassword(password));
+    }
+
+    public CompletableFuture<Void> clickLogin() {
+        return session.run(page::clickLogin);
+    }
+
+    /** Open the form, pick username and password and submit, as one queued action. */
+    public CompletableFuture<Void> login(String username, String password) {
+        return session.run(() -> {
+            page.openLoginForm();
+            page.selectUsername(username);
+            page.selectPassword(password);
+            page.clickLogin();
+        });
+    }
+
+    public CompletableFuture<String> getPageTitle() {
+        return session.submit(page::getPageTitle);
+    }
+
+    public CompletableFuture<String> getLoginModalHtml() {
+        return session.submit(page::getLoginModalHtml);
+    }
+}
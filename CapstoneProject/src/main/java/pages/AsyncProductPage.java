@@ -0,0 +1,22 @@
+package pages;
+
+import java.util.concurrent.CompletableFuture;
+
+/** {@link ProductPage} on an {@link AsyncSession}. */
+public class AsyncProductPage {
+    private final AsyncSession session;
+    private final ProductPage page;
+
+    public AsyncProductPage(AsyncSession session) {
+        this.session = session;
+        this.page = new ProductPage(session.getDriver());
+    }
+
+    public CompletableFuture<Void> addFirstProductToCart() {
+        return session.run(page::addFirstProductToCart);
+    }
+
+    public CompletableFuture<Boolean> addProductToCartByName(String name) {
+        return session.submit(() -> page.addProductToCartByName(name));
+    }
+}
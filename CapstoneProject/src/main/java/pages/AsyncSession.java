@@ -0,0 +1,71 @@
+package pages;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs page-object calls for one WebDriver session on virtual threads.
+ *
+ * A WebDriver session is not thread-safe, so calls on the same session are chained and run
+ * one after another in submission order; different sessions run fully in parallel. While a
+ * call waits on the WebDriver HTTP round trip only a virtual thread is parked, so one JVM
+ * can drive hundreds of (remote) sessions without a big platform thread pool:
+ *
+ * <pre>
+ * AsyncSession session = new AsyncSession(driver);
+ * AsyncLoginPage login = new AsyncLoginPage(session);
+ * login.openLoginForm()
+ *      .thenCompose(v -&gt; login.login("demouser", "testingisfun99"))
+ *      .thenCompose(v -&gt; new AsyncCartPage(session).getSubtotal())
+ *      .join();
+ * </pre>
+ */
+public class AsyncSession {
+    // one virtual thread per call; shared by all sessions of this JVM
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final WebDriver driver;
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    public AsyncSession(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    /** Queues an action on this session; it starts once every earlier action has finished. */
+    public synchronized <T> CompletableFuture<T> submit(Callable<T> action) {
+        CompletableFuture<T> result = tail
+            .handle((ignored, previousError) -> null)   // an earlier failure must not block the queue
+            .thenApplyAsync(ignored -> {
+                try {
+                    return action.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, VIRTUAL_THREADS);
+        tail = result;
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Runnable action) {
+        return submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** Completes when everything queued so far on this session is done (failed or not). */
+    public synchronized CompletableFuture<Void> idle() {
+        return tail.handle((ignored, error) -> null);
+    }
+}
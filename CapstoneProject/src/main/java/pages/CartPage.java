@@ -7,25 +7,34 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class CartPage {
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final Waits wait;
 
     
     private final By cartRoot = By.cssSelector("div.float-cart");
     private final By cartItems = By.cssSelector("div.float-cart .shelf-item");
-    private final By itemNameInCart = By.cssSelector(".shelf-item__details > p, .shelf-item__title, .shelf-item__details");
-    private final By subtotalSel = By.cssSelector("p.sub-price__val, .sub-price__val, .cart-subtotal, .subtotal");
+    private final By itemNameInCart = Locator.css("CartPage.itemName", ".shelf-item__details > p", ".shelf-item__title", ".shelf-item__details");
+    private final By emptyCart = By.cssSelector("div.float-cart .shelf-empty");
+    private final By closedBag = By.cssSelector("div.float-cart .bag--float-cart-closed");
+    private final By subtotalSel = Locator.css("CartPage.subtotal", "p.sub-price__val", ".sub-price__val", ".cart-subtotal", ".subtotal");
+    // remove control inside one cart item
+    private final Locator removeControl = Locator.css("CartPage.removeControl",
+        ".shelf-item__del", ".shelf-item_del", "button.remove, .remove", ".item-remove", "button");
+
+    private static final Pattern LABELED_QTY = Pattern.compile("Quantity[:\\s]*([0-9]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOOSE_NUMBER = Pattern.compile("\\b([0-9]+)\\b");
 
     public CartPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(8));
+        this.wait = new Waits(driver, "CartPage", Duration.ofSeconds(8));
     }
  // place inside your CartPage class
     public boolean isCartOpen() {
@@ -42,7 +51,7 @@ public class CartPage {
     // Wait until cart root is visible (floating cart open)
     public void waitUntilCartVisible() {
         try {
-            wait.until(ExpectedConditions.visibilityOfElementLocated(cartRoot));
+            wait.until("cartVisible", ExpectedConditions.visibilityOfElementLocated(cartRoot));
         } catch (Exception e) {
            
             System.err.println("DEBUG: waitUntilCartVisible timed out: " + e.getMessage());
@@ -50,10 +59,18 @@ public class CartPage {
         }
     }
 
+    // Opens the floating cart if it is closed; adding a product opens it, a seeded cart starts closed
+    // (reads the root's class: a findElements miss would cost the session's implicit wait)
+    public void openCart() {
+        if (driver.findElement(cartRoot).getAttribute("class").contains("float-cart--open")) return;
+        wait.until("bagClickable", ExpectedConditions.elementToBeClickable(closedBag)).click();
+        wait.until("cartOpen", ExpectedConditions.attributeContains(cartRoot, "class", "float-cart--open"));
+    }
+
     // Wait until at least one cart item exists 
     public void waitForCartItems() {
         try {
-            wait.until(ExpectedConditions.numberOfElementsToBeMoreThan(cartItems, 0));
+            wait.until("cartItems", ExpectedConditions.numberOfElementsToBeMoreThan(cartItems, 0));
         } catch (Exception e) {
             System.err.println("DEBUG: waitForCartItems timed out: " + e.getMessage());
             
@@ -76,10 +93,17 @@ public class CartPage {
         return names;
     }
 
-    public boolean isItemPresent(String partialName) {
+    // Wait until the cart shows items or its empty-bag message, so an empty cart answers at once
+    private void waitForCartContent() {
         try {
-            waitForCartItems();
-        } catch (Exception ignored) {}
+            wait.until("cartContent", d -> !d.findElements(cartItems).isEmpty() || !d.findElements(emptyCart).isEmpty());
+        } catch (Exception e) {
+            System.err.println("DEBUG: waitForCartContent timed out: " + e.getMessage());
+        }
+    }
+
+    public boolean isItemPresent(String partialName) {
+        waitForCartContent();
         return getCartItemNames().stream()
                 .anyMatch(n -> n.toLowerCase().contains(partialName.toLowerCase()));
     }
@@ -98,9 +122,8 @@ public class CartPage {
             // 1) look specifically for "Quantity" label and digits after it
             try {
                 String whole = it.getText();
-                java.util.regex.Matcher m = java.util.regex.Pattern.compile("Quantity[:\\s]*([0-9]+)", java.util.regex.Pattern.CASE_INSENSITIVE).matcher(whole);
-                if (m.find()) {
-                    int val = Integer.parseInt(m.group(1));
+                int val = parseLabeledQuantity(whole);
+                if (val >= 0) {
                     System.out.println("DEBUG: Parsed qty for '" + title + "' via labeled Quantity regex = " + val);
                     return val;
                 }
@@ -132,9 +155,8 @@ public class CartPage {
             // 3) fallback: parse any number in the item text 
             try {
                 String all = it.getText();
-                java.util.regex.Matcher m2 = java.util.regex.Pattern.compile("\\b([0-9]+)\\b").matcher(all);
-                if (m2.find()) {
-                    int val = Integer.parseInt(m2.group(1));
+                int val = parseLooseNumber(all);
+                if (val >= 0) {
                     System.out.println("DEBUG: Parsed qty for '" + title + "' via loose number = " + val);
                     return val;
                 }
@@ -184,7 +206,7 @@ public class CartPage {
 
             for (int i = 0; i < times; i++) {
                 try {
-                    wait.until(ExpectedConditions.elementToBeClickable(plus)).click();
+                    wait.until("plusClickable", ExpectedConditions.elementToBeClickable(plus)).click();
                 } catch (Exception e) {
                     // fallback to JS click
                     ((JavascriptExecutor) driver).executeScript("arguments[0].click();", plus);
@@ -194,7 +216,7 @@ public class CartPage {
 
             // Wait for either qty increase or subtotal change (5s)
             try {
-                new WebDriverWait(driver, Duration.ofSeconds(5)).until(d -> {
+                wait.until("quantityChanged", Duration.ofSeconds(5), d -> {
                     int nowQty = getQuantityForItem(partialName);
                     String nowSub = getSubtotal();
                     if (beforeQty == -1 && nowQty == -1) {
@@ -255,30 +277,8 @@ public class CartPage {
             // Keep an effectively-final copy for use inside lambdas
             final String titleFinal = title;
 
-            // find remove controls scoped to this item
-            List<By> removeLocs = List.of(
-                    By.cssSelector(".shelf-item__del"),
-                    By.cssSelector(".shelf-item_del"),
-                    By.cssSelector("button.remove, .remove"),
-                    By.cssSelector(".item-remove"),
-                    By.cssSelector("button")
-            );
-
-            WebElement toClick = null;
-            for (By loc : removeLocs) {
-                List<WebElement> found = it.findElements(loc);
-                if (!found.isEmpty()) {
-                    for (WebElement e : found) {
-                        try {
-                            if (e.isDisplayed() && e.isEnabled()) {
-                                toClick = e;
-                                break;
-                            }
-                        } catch (Exception ignored) {}
-                    }
-                }
-                if (toClick != null) break;
-            }
+            // find a usable remove control scoped to this item, historically best candidate first
+            WebElement toClick = removeControl.findFirst(it, e -> e.isDisplayed() && e.isEnabled());
 
             if (toClick == null) {
                 // fallback: click an 'svg' or small x inside item
@@ -294,7 +294,7 @@ public class CartPage {
             }
 
             try {
-                wait.until(ExpectedConditions.elementToBeClickable(toClick)).click();
+                wait.until("removeClickable", ExpectedConditions.elementToBeClickable(toClick)).click();
             } catch (Exception e) {
                 // JS fallback
                 ((JavascriptExecutor) driver).executeScript("arguments[0].click();", toClick);
@@ -302,7 +302,7 @@ public class CartPage {
 
             // wait until that specific item is no longer present
             try {
-                boolean gone = new WebDriverWait(driver, java.time.Duration.ofSeconds(6)).until(d -> {
+                boolean gone = wait.until("itemRemoved", Duration.ofSeconds(6), d -> {
                     List<WebElement> now = d.findElements(cartItems);
                     for (WebElement e : now) {
                         try {
@@ -324,6 +324,26 @@ public class CartPage {
     }
 
 
+    // "Quantity: 2" style label in a cart item's text; -1 if absent
+    static int parseLabeledQuantity(String itemText) {
+        Matcher m = LABELED_QTY.matcher(itemText == null ? "" : itemText);
+        try {
+            return m.find() ? Integer.parseInt(m.group(1)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // first standalone number in a cart item's text; -1 if none
+    static int parseLooseNumber(String itemText) {
+        Matcher m = LOOSE_NUMBER.matcher(itemText == null ? "" : itemText);
+        try {
+            return m.find() ? Integer.parseInt(m.group(1)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     // debug raw cart text
     public String getCartRawText() {
         try {
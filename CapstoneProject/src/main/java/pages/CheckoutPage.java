@@ -3,7 +3,6 @@ package pages;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import java.time.Duration;
 
 /**
@@ -11,7 +10,7 @@ import java.time.Duration;
  */
 public class CheckoutPage {
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final Waits wait;
     private final By checkoutFormRoot = By.cssSelector("div.checkout-form, div.checkout-view-content, #checkout-app");
     private final By submitButton = By.cssSelector("button#checkout-shipping-continue, button[type=submit].button--primary, button[type=submit]");
 
@@ -20,51 +19,50 @@ public class CheckoutPage {
 
     public CheckoutPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(8));
+        this.wait = new Waits(driver, "CheckoutPage", Duration.ofSeconds(8));
     }
 
-    // Tolerant input locator for other fields
+    // Tolerant input locator for other fields: input after the label, textarea after it, input after any matching text
     private By inputForLabel(String labelText) {
-        String xpath =
-            ".//label[contains(normalize-space(.), '" + labelText + "')]"
-            + "/following::input[1] | .//label[contains(normalize-space(.), '" + labelText + "')]"
-            + "/following::textarea[1] | .//*[contains(normalize-space(.), '" + labelText + "')]/following::input[1]";
-        return By.xpath(xpath);
+        return new Locator("CheckoutPage.input[" + labelText + "]",
+            By.xpath(".//label[contains(normalize-space(.), '" + labelText + "')]/following::input[1]"),
+            By.xpath(".//label[contains(normalize-space(.), '" + labelText + "')]/following::textarea[1]"),
+            By.xpath(".//*[contains(normalize-space(.), '" + labelText + "')]/following::input[1]"));
     }
 
     // Wait until checkout form is visible
     public void waitForForm() {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(checkoutFormRoot));
+        wait.until("formVisible", ExpectedConditions.visibilityOfElementLocated(checkoutFormRoot));
     }
 
     public void fillFirstName(String firstName) {
         waitForForm();
         By locator = inputForLabel("First Name");
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator)).clear();
+        wait.until("firstNameVisible", ExpectedConditions.visibilityOfElementLocated(locator)).clear();
         driver.findElement(locator).sendKeys(firstName);
     }
 
     public void fillLastName(String lastName) {
         By locator = inputForLabel("Last Name");
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator)).clear();
+        wait.until("lastNameVisible", ExpectedConditions.visibilityOfElementLocated(locator)).clear();
         driver.findElement(locator).sendKeys(lastName);
     }
 
     public void fillAddress(String addr) {
         waitForForm();
-        wait.until(ExpectedConditions.visibilityOfElementLocated(addressInput)).clear();
+        wait.until("addressVisible", ExpectedConditions.visibilityOfElementLocated(addressInput)).clear();
         driver.findElement(addressInput).sendKeys(addr);
     }
 
     public void fillProvince(String prov) {
         By locator = inputForLabel("State/Province");
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator)).clear();
+        wait.until("provinceVisible", ExpectedConditions.visibilityOfElementLocated(locator)).clear();
         driver.findElement(locator).sendKeys(prov);
     }
 
     public void fillPostalCode(String pc) {
         By locator = inputForLabel("Postal Code");
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator)).clear();
+        wait.until("postalCodeVisible", ExpectedConditions.visibilityOfElementLocated(locator)).clear();
         driver.findElement(locator).sendKeys(pc);
     }
 
@@ -81,6 +79,6 @@ public class CheckoutPage {
     /** Click the continue/submit button on shipping step */
     public void submitShipping() {
         waitForForm();
-        wait.until(ExpectedConditions.elementToBeClickable(submitButton)).click();
+        wait.until("submitClickable", ExpectedConditions.elementToBeClickable(submitButton)).click();
     }
 }
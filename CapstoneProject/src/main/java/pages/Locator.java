@@ -0,0 +1,221 @@
+package pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A By with several candidate locators for the same thing, tried in the order they have
+ * historically matched.
+ *
+ * Each lookup records which candidate matched and how long it took; the ranking is an
+ * exponential moving average of hits, so a candidate that stops matching is overtaken within a
+ * few lookups. Rankings persist to target/perf/locator-rankings.properties at JVM exit. On the
+ * happy path a lookup is a single findElements for the leading candidate; only when it misses
+ * are the others tried, with the implicit wait suspended so each miss is instant.
+ */
+public class Locator extends By {
+    public static final Path FILE = Paths.get(System.getProperty("locators.file",
+        Paths.get(System.getProperty("user.dir"), "target", "perf", "locator-rankings.properties").toString()));
+    private static final double ALPHA = 0.3;
+    private static final Map<String, Rank> ranks = load();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Locator::save, "locator-rankings-save"));
+    }
+
+    private final String name;
+    private final List<By> candidates;
+    private final List<String> css;
+
+    /** Candidates in preferred order for a locator without history. */
+    public Locator(String name, By... candidates) {
+        this(name, Arrays.asList(candidates), null);
+    }
+
+    private Locator(String name, List<By> candidates, List<String> css) {
+        this.name = name;
+        this.candidates = candidates;
+        this.css = css;
+    }
+
+    /** CSS-only locator; {@link #rankedCss()} exposes the selectors for in-page scripts. */
+    public static Locator css(String name, String... selectors) {
+        List<By> bys = new ArrayList<>();
+        for (String s : selectors) bys.add(By.cssSelector(s));
+        return new Locator(name, bys, Arrays.asList(selectors));
+    }
+
+    /** Candidates (as By) in current rank order. */
+    public List<By> ranked() {
+        List<By> out = new ArrayList<>(candidates);
+        out.sort(Comparator.comparingDouble((By b) -> -rank(b).score));
+        return out;
+    }
+
+    /** CSS selectors in current rank order (css() locators only). */
+    public List<String> rankedCss() {
+        if (css == null) throw new IllegalStateException(name + " is not a css() locator");
+        List<String> out = new ArrayList<>(css);
+        out.sort(Comparator.comparingDouble((String s) -> -rank(candidates.get(css.indexOf(s))).score));
+        return out;
+    }
+
+    @Override
+    public List<WebElement> findElements(SearchContext context) {
+        List<WebElement> found = new ArrayList<>();
+        findFirst(context, found::add, e -> true);
+        return found;
+    }
+
+    @Override
+    public WebElement findElement(SearchContext context) {
+        WebElement e = findFirst(context, null, x -> true);
+        if (e == null) throw new NoSuchElementException("No candidate of " + name + " matched: " + candidates);
+        return e;
+    }
+
+    /**
+     * First element, by candidate rank, that passes the filter (e.g. displayed and enabled);
+     * null when no candidate has one.
+     */
+    public WebElement findFirst(SearchContext context, Predicate<WebElement> accept) {
+        return findFirst(context, null, accept);
+    }
+
+    // all accepted matches of the winning candidate go to sink (when given); returns the first
+    private WebElement findFirst(SearchContext context, Consumer<WebElement> sink, Predicate<WebElement> accept) {
+        List<By> order = ranked();
+        WebDriver driver = null;
+        Duration implicit = Duration.ZERO;
+        try {
+            for (int i = 0; i < order.size(); i++) {
+                if (i == 1) {
+                    // the leader missed: try the rest without paying the implicit wait per candidate
+                    driver = getWebDriver(context);
+                    implicit = implicitWait(driver);
+                    if (!implicit.isZero()) driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+                }
+                By by = order.get(i);
+                long start = System.nanoTime();
+                List<WebElement> matches = context.findElements(by);
+                WebElement first = null;
+                for (WebElement m : matches) {
+                    boolean ok;
+                    try {
+                        ok = accept.test(m);
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    if (!ok) continue;
+                    if (first == null) first = m;
+                    if (sink == null) break;
+                    sink.accept(m);
+                }
+                rank(by).record(first != null, System.nanoTime() - start);
+                if (first != null) {
+                    if (i > 0) System.out.println("DEBUG: Locator " + name + " matched candidate " + by + " (rank " + (i + 1) + ")");
+                    return first;
+                }
+            }
+            return null;
+        } finally {
+            if (driver != null && !implicit.isZero()) driver.manage().timeouts().implicitlyWait(implicit);
+        }
+    }
+
+    private static Duration implicitWait(WebDriver driver) {
+        try {
+            return driver == null ? Duration.ZERO : driver.manage().timeouts().getImplicitWaitTimeout();
+        } catch (Exception e) {
+            return Duration.ZERO;
+        }
+    }
+
+    private Rank rank(By by) {
+        return ranks.computeIfAbsent(name + " | " + by, k -> new Rank(-candidates.indexOf(by) * 1e-3));
+    }
+
+    @Override
+    public String toString() {
+        return "Locator(" + name + ")";
+    }
+
+    /** Hit-rate moving average and mean lookup time of one candidate. */
+    static class Rank {
+        volatile double score;
+        volatile double micros;
+        volatile long lookups;
+
+        Rank(double initial) {
+            this.score = initial;
+        }
+
+        synchronized void record(boolean hit, long nanos) {
+            score = score * (1 - ALPHA) + (hit ? ALPHA : 0);
+            micros = lookups == 0 ? nanos / 1000.0 : micros * (1 - ALPHA) + ALPHA * nanos / 1000.0;
+            lookups++;
+        }
+    }
+
+    private static Map<String, Rank> load() {
+        Map<String, Rank> out = new ConcurrentHashMap<>();
+        if (!Files.exists(FILE)) return out;
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(FILE)) {
+            p.load(in);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not read locator rankings: " + e.getMessage());
+            return out;
+        }
+        for (String key : p.stringPropertyNames()) {
+            String[] v = p.getProperty(key).trim().split("\\s+");
+            try {
+                Rank r = new Rank(Double.parseDouble(v[0]));
+                r.micros = Double.parseDouble(v[1]);
+                r.lookups = Long.parseLong(v[2]);
+                out.put(key, r);
+            } catch (Exception ignored) {
+                // unreadable line: the candidate starts without history
+            }
+        }
+        return out;
+    }
+
+    /** Writes the rankings ("score meanMicros lookups" per candidate); called automatically at JVM exit. */
+    public static void save() {
+        if (ranks.isEmpty()) return;
+        Properties p = new Properties();
+        ranks.forEach((k, r) -> {
+            if (r.lookups > 0) p.setProperty(k, String.format(Locale.ROOT, "%.4f %.0f %d", r.score, r.micros, r.lookups));
+        });
+        if (p.isEmpty()) return;
+        try {
+            Files.createDirectories(FILE.getParent());
+            try (OutputStream out = Files.newOutputStream(FILE)) {
+                p.store(out, "locator candidate rankings: hit-rate score, mean lookup micros, lookups");
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write locator rankings: " + e.getMessage());
+        }
+    }
+}
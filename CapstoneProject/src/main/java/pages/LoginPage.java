@@ -4,23 +4,26 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.List;
 
 public class LoginPage {
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final Waits wait;
 
     private final By signInBtn = By.id("signin");
     private final By usernameControl = By.cssSelector("#username div.css-yk16xz-control");
     private final By passwordControl = By.cssSelector("#password div.css-yk16xz-control");
     private final By loginBtn = By.id("login-btn");
+    // modal variants seen on the demo site, then a plain login form
+    private final Locator loginModal = Locator.css("LoginPage.modal",
+        "div.login-modal", "#loginModal", ".modal.login", ".auth-modal", "div.modal-content",
+        "form#login, form.login-form, form[name='login']");
 
     public LoginPage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(6));
+        this.wait = new Waits(driver, "LoginPage", Duration.ofSeconds(6));
     }
  // ----------------- LoginPage addition -----------------
     /**
@@ -29,26 +32,9 @@ public class LoginPage {
      */
     public String getLoginModalHtml() {
         try {
-            // Try several selectors that could correspond to a login modal
-            By[] modalSelectors = new By[] {
-                By.cssSelector("div.login-modal"),
-                By.cssSelector("#loginModal"),
-                By.cssSelector(".modal.login"),
-                By.cssSelector(".auth-modal"),
-                By.cssSelector("div.modal-content")
-            };
-
-            for (By sel : modalSelectors) {
-                List<WebElement> els = driver.findElements(sel);
-                if (!els.isEmpty()) {
-                    return els.get(0).getAttribute("innerHTML");
-                }
-            }
-
-            // If nothing matched, attempt to find a login form
-            List<WebElement> forms = driver.findElements(By.cssSelector("form#login, form.login-form, form[name='login']"));
-            if (!forms.isEmpty()) {
-                return forms.get(0).getAttribute("innerHTML");
+            List<WebElement> els = driver.findElements(loginModal);
+            if (!els.isEmpty()) {
+                return els.get(0).getAttribute("innerHTML");
             }
 
             return "";
@@ -63,12 +49,12 @@ public class LoginPage {
  // LoginPage.java
     public void openLoginForm() {
         // Click the "Sign In" button to open modal
-        WebElement signInBtn = wait.until(ExpectedConditions.elementToBeClickable(
+        WebElement signInBtn = wait.until("signInClickable", ExpectedConditions.elementToBeClickable(
                 By.id("signin"))); // safer than css chain
         signInBtn.click();
 
         // Wait for the login modal to appear
-        wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector("div#login-btn, div#username")));
+        wait.until("modalVisible", ExpectedConditions.visibilityOfElementLocated(By.cssSelector("div#login-btn, div#username")));
 
         // If dropdown not yet visible, click username field
         List<WebElement> dropdowns = driver.findElements(By.cssSelector("#username div.css-yk16xz-control"));
@@ -79,14 +65,14 @@ public class LoginPage {
         }
 
         // Finally wait for the dropdown control to appear
-        wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector("#username div.css-yk16xz-control")));
+        wait.until("dropdownVisible", ExpectedConditions.visibilityOfElementLocated(By.cssSelector("#username div.css-yk16xz-control")));
         System.out.println("DEBUG: Login form opened successfully ✅");
     }
 
 
     private void selectCustomDropdown(String containerId, String visibleText) {
         By control = By.cssSelector("#" + containerId + " div.css-yk16xz-control");
-        wait.until(ExpectedConditions.elementToBeClickable(control));
+        wait.until("dropdownClickable", ExpectedConditions.elementToBeClickable(control));
 
         // If already selected and matches, return
         try {
@@ -100,15 +86,21 @@ public class LoginPage {
         // open dropdown and click first matching option 
         driver.findElement(control).click();
         By optionXpath = By.xpath("//div[@id='" + containerId + "']//div[contains(normalize-space(.), \"" + visibleText + "\")]");
-        wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(optionXpath));
+        wait.until("optionsPresent", ExpectedConditions.presenceOfAllElementsLocatedBy(optionXpath));
         List<WebElement> opts = driver.findElements(optionXpath);
         if (opts.isEmpty()) {
             throw new RuntimeException("Option containing '" + visibleText + "' not found for: " + containerId);
         }
         opts.get(0).click();
 
-        // small pause to allow UI to update 
-        try { Thread.sleep(200); } catch (InterruptedException ignored) {}
+        // wait for the choice to show as the selected value instead of a fixed pause
+        By selected = By.cssSelector("#" + containerId + " div.css-1uccc91-singleValue");
+        try {
+            wait.until("optionSelected", d -> d.findElements(selected).stream()
+                .anyMatch(e -> e.getText().trim().toLowerCase().contains(visibleText.trim().toLowerCase())));
+        } catch (Exception e) {
+            System.err.println("DEBUG: selected value for " + containerId + " not shown: " + e.getMessage());
+        }
     }
 
     public void selectUsername(String username) {
@@ -120,7 +112,7 @@ public class LoginPage {
     }
 
     public void clickLogin() {
-        wait.until(ExpectedConditions.elementToBeClickable(loginBtn)).click();
+        wait.until("loginClickable", ExpectedConditions.elementToBeClickable(loginBtn)).click();
     }
 
     public String getPageTitle() {
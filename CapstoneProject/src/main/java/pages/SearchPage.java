@@ -5,24 +5,85 @@ import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.PageFactory;
 import org.openqa.selenium.support.ui.Select;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class SearchPage {
     private final WebDriver driver;
 
-    @FindBy(css = ".shelf-item__title, .product-title, .title")
-    private List<WebElement> productTitles;
+    private final Locator productTitles = Locator.css("SearchPage.productTitle", ".shelf-item__title", ".product-title", ".title");
 
     @FindBy(css = ".sort select, select.sort")
     private WebElement sortDropdown;
 
+    /**
+     * Reads title and price text for every visible shelf item in a single script call,
+     * instead of one getText() round trip per product. Title selectors are tried in rank order.
+     */
+    private static final String EXTRACT_SHELF_JS =
+        "var out = [];"
+        + "var items = document.querySelectorAll('div.shelf-item');"
+        + "for (var i = 0; i < items.length; i++) {"
+        + "  var it = items[i];"
+        + "  if (it.offsetParent === null) continue;"
+        + "  var t = null;"
+        + "  for (var s = 0; s < arguments[0].length && !t; s++) t = it.querySelector(arguments[0][s]);"
+        + "  var p = it.querySelector('.shelf-item__price .val') || it.querySelector('.shelf-item__price');"
+        + "  out.push({title: t ? t.textContent.trim() : '', price: p ? p.textContent.trim() : ''});"
+        + "}"
+        + "return out;";
+
     public SearchPage(WebDriver driver) {
         this.driver = driver;
         PageFactory.initElements(driver, this);
     }
 
+    /** Title, price and vendor of one product on the shelf. */
+    public static class ShelfItem {
+        private final String title;
+        private final double price;
+        private final String vendor;
+
+        public ShelfItem(String title, double price, String vendor) {
+            this.title = title;
+            this.price = price;
+            this.vendor = vendor;
+        }
+
+        public String getTitle() { return title; }
+        public double getPrice() { return price; }
+        public String getVendor() { return vendor; }
+
+        @Override
+        public String toString() {
+            return title + " (" + vendor + ", $" + price + ")";
+        }
+    }
+
     public List<WebElement> getProductTitles() {
-        return productTitles;
+        return driver.findElements(productTitles);
+    }
+
+    /** Bulk snapshot of all visible shelf items; one WebDriver call regardless of shelf size. */
+    @SuppressWarnings("unchecked")
+    public List<ShelfItem> getShelfItems() {
+        List<ShelfItem> result = new ArrayList<>();
+        Object raw = ((JavascriptExecutor) driver).executeScript(EXTRACT_SHELF_JS, productTitles.rankedCss());
+        if (!(raw instanceof List)) return result;
+        for (Object o : (List<Object>) raw) {
+            Map<String, Object> m = (Map<String, Object>) o;
+            String title = String.valueOf(m.get("title"));
+            result.add(new ShelfItem(title, parsePrice(String.valueOf(m.get("price"))), vendorOf(title)));
+        }
+        return result;
+    }
+
+    /** Text of every visible product title, fetched in one call. */
+    public List<String> getProductTitleTexts() {
+        List<String> titles = new ArrayList<>();
+        for (ShelfItem item : getShelfItems()) titles.add(item.getTitle());
+        return titles;
     }
 
     public void applyVendorFilter(String vendor) {
@@ -65,4 +126,61 @@ public class SearchPage {
             return sortDropdown.getText().toLowerCase().contains(sortOrder.toLowerCase());
         }
     }
+
+    /**
+     * Checks that the shelf itself is ordered by price for the given sort label
+     * ("Lowest to highest" / "Highest to lowest"). Other labels fall back to the control check.
+     */
+    public boolean verifyResultsSortedBy(String sortOrder) {
+        String order = sortOrder.trim().toLowerCase();
+        boolean ascending;
+        if (order.startsWith("lowest")) ascending = true;
+        else if (order.startsWith("highest")) ascending = false;
+        else return verifySortingByControl(sortOrder);
+
+        List<ShelfItem> items = getShelfItems();
+        if (items.isEmpty()) return false;
+        for (int i = 1; i < items.size(); i++) {
+            double prev = items.get(i - 1).getPrice();
+            double cur = items.get(i).getPrice();
+            if (ascending ? cur < prev : cur > prev) {
+                System.err.println("DEBUG: Shelf not sorted '" + sortOrder + "' at " + items.get(i - 1) + " -> " + items.get(i));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Checks that every visible product belongs to the given vendor. */
+    public boolean verifyResultsMatchVendor(String vendor) {
+        List<ShelfItem> items = getShelfItems();
+        if (items.isEmpty()) return false;
+        for (ShelfItem item : items) {
+            if (!vendor.equalsIgnoreCase(item.getVendor())) {
+                System.err.println("DEBUG: Product from another vendor on shelf: " + item);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // bstackdemo does not render the vendor on shelf items, so derive it from the product line
+    static String vendorOf(String title) {
+        String t = title == null ? "" : title.toLowerCase();
+        if (t.contains("iphone")) return "Apple";
+        if (t.contains("galaxy")) return "Samsung";
+        if (t.contains("pixel")) return "Google";
+        if (t.contains("one plus") || t.contains("oneplus")) return "OnePlus";
+        return "";
+    }
+
+    static double parsePrice(String text) {
+        String digits = text == null ? "" : text.replaceAll("[^0-9.]", "");
+        if (digits.isEmpty()) return -1;
+        try {
+            return Double.parseDouble(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,233 @@
+package pages;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Wait factory for the page objects: polls fast first and backs off, and sizes each timeout
+ * from the latencies that condition has shown in earlier runs.
+ *
+ * Latencies are kept per browser and condition ("chrome:CartPage.cartVisible") in a window of
+ * the last 200 waits and persisted to target/perf/wait-latencies.properties at JVM exit. With
+ * enough history the timeout is p99 * 2 + waits.marginMs (default 500), between waits.minMs
+ * (default 1000) and 3x the page's own timeout; before that the page's timeout is used. A wait
+ * that times out is recorded at its timeout, so conditions that got slower earn longer timeouts.
+ * The session's implicit wait is suspended while polling.
+ * -Dwaits.adaptive=false restores fixed timeouts and 500 ms polling.
+ */
+public class Waits {
+    public static final Path FILE = Paths.get(System.getProperty("waits.file",
+        Paths.get(System.getProperty("user.dir"), "target", "perf", "wait-latencies.properties").toString()));
+    private static final int WINDOW = 200;
+    private static final int MIN_SAMPLES = 20;
+    private static final Map<String, Stats> stats = load();
+    private static final LongAdder waits = new LongAdder();
+    private static final LongAdder timeouts = new LongAdder();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Waits::save, "waits-save"));
+    }
+
+    private final WebDriver driver;
+    private final String owner;
+    private final Duration timeout;
+
+    /** Waits of one page object; timeout is the fallback until a condition has history. */
+    public Waits(WebDriver driver, String owner, Duration timeout) {
+        this.driver = driver;
+        this.owner = owner;
+        this.timeout = timeout;
+    }
+
+    public <T> T until(String condition, Function<? super WebDriver, T> isTrue) {
+        return until(condition, timeout, isTrue);
+    }
+
+    public <T> T until(String condition, Duration fallback, Function<? super WebDriver, T> isTrue) {
+        waits.increment();
+        if (!isAdaptive()) {
+            try {
+                return new WebDriverWait(driver, fallback).withMessage(owner + "." + condition).until(isTrue);
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                throw e;
+            }
+        }
+
+        Stats s = stats.computeIfAbsent(browser() + ":" + owner + "." + condition, k -> new Stats());
+        Duration limit = s.timeout(fallback);
+        WebDriverWait wait = new WebDriverWait(driver, limit, Duration.ofMillis(maxPollMillis()),
+            Clock.systemDefaultZone(), new BackoffSleeper(s.firstPollMillis()));
+        // names the condition in the TimeoutException and in flight recordings
+        wait.withMessage(owner + "." + condition);
+        // an implicit wait would stretch every findElements miss inside the condition to its length
+        Duration implicit = implicitWait();
+        if (!implicit.isZero()) driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        long start = System.nanoTime();
+        try {
+            T value = wait.until(isTrue);
+            s.add((System.nanoTime() - start) / 1_000_000);
+            return value;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            s.add(Math.max(limit.toMillis(), (System.nanoTime() - start) / 1_000_000));
+            throw e;
+        } finally {
+            if (!implicit.isZero()) driver.manage().timeouts().implicitlyWait(implicit);
+        }
+    }
+
+    private Duration implicitWait() {
+        try {
+            return driver.manage().timeouts().getImplicitWaitTimeout();
+        } catch (Exception e) {
+            return Duration.ZERO;
+        }
+    }
+
+    /** Timeout the next wait for this condition would use. */
+    public Duration timeoutFor(String condition) {
+        Stats s = stats.get(browser() + ":" + owner + "." + condition);
+        return s == null || !isAdaptive() ? timeout : s.timeout(timeout);
+    }
+
+    /** Waits started in this JVM (all page objects). */
+    public static long waitCount() {
+        return waits.sum();
+    }
+
+    /** Waits that ended in a TimeoutException. */
+    public static long timeoutCount() {
+        return timeouts.sum();
+    }
+
+    public static boolean isAdaptive() {
+        return Boolean.parseBoolean(System.getProperty("waits.adaptive", "true"));
+    }
+
+    private static long maxPollMillis() {
+        return Long.getLong("waits.maxPollMs", 250L);
+    }
+
+    // HtmlUnit and a real browser differ by an order of magnitude, so they learn separately
+    private String browser() {
+        try {
+            if (driver instanceof HasCapabilities) return ((HasCapabilities) driver).getCapabilities().getBrowserName();
+        } catch (Exception ignored) {}
+        return "unknown";
+    }
+
+    /** Sliding window of observed latencies (ms) for one condition. */
+    static class Stats {
+        private final long[] ring = new long[WINDOW];
+        private int size;
+        private int next;
+
+        synchronized void add(long ms) {
+            ring[next] = ms;
+            next = (next + 1) % WINDOW;
+            if (size < WINDOW) size++;
+        }
+
+        synchronized long percentile(double p) {
+            if (size == 0) return -1;
+            long[] sorted = Arrays.copyOf(ring, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(p * size) - 1)];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        Duration timeout(Duration fallback) {
+            if (size() < MIN_SAMPLES) return fallback;
+            long ms = percentile(0.99) * 2 + Long.getLong("waits.marginMs", 500L);
+            ms = Math.max(ms, Long.getLong("waits.minMs", 1000L));
+            return Duration.ofMillis(Math.min(ms, fallback.toMillis() * 3));
+        }
+
+        // a quarter of the median: most conditions are met on the first or second poll
+        long firstPollMillis() {
+            long p50 = size() < MIN_SAMPLES ? -1 : percentile(0.5);
+            return p50 < 0 ? 10 : Math.max(10, Math.min(100, p50 / 4));
+        }
+
+        synchronized String serialize() {
+            StringBuilder sb = new StringBuilder();
+            // oldest first, so the window keeps sliding across runs
+            for (int i = 0; i < size; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(ring[(next - size + i + WINDOW) % WINDOW]);
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Poll interval doubling from the first poll up to waits.maxPollMs. */
+    static class BackoffSleeper implements Sleeper {
+        private long nextMillis;
+
+        BackoffSleeper(long firstMillis) {
+            this.nextMillis = firstMillis;
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            Thread.sleep(nextMillis);
+            nextMillis = Math.min(nextMillis * 2, maxPollMillis());
+        }
+    }
+
+    private static Map<String, Stats> load() {
+        Map<String, Stats> out = new ConcurrentHashMap<>();
+        if (!Files.exists(FILE)) return out;
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(FILE)) {
+            p.load(in);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not read wait latencies: " + e.getMessage());
+            return out;
+        }
+        for (String key : p.stringPropertyNames()) {
+            Stats s = new Stats();
+            for (String v : p.getProperty(key).trim().split("\\s+")) {
+                try { s.add(Long.parseLong(v)); } catch (NumberFormatException ignored) {}
+            }
+            out.put(key, s);
+        }
+        return out;
+    }
+
+    /** Writes the latency windows; called automatically at JVM exit. */
+    public static void save() {
+        if (stats.isEmpty() || !isAdaptive()) return;
+        Properties p = new Properties();
+        stats.forEach((k, s) -> p.setProperty(k, s.serialize()));
+        try {
+            Files.createDirectories(FILE.getParent());
+            try (OutputStream out = Files.newOutputStream(FILE)) {
+                p.store(out, "observed wait latencies (ms), oldest first");
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write wait latencies: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package runners;
+
+import io.cucumber.cucumberexpressions.Argument;
+import io.cucumber.cucumberexpressions.Expression;
+import io.cucumber.cucumberexpressions.ExpressionFactory;
+import io.cucumber.cucumberexpressions.ParameterTypeRegistry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.WebDriver;
+import stepDefinitions.EndToEndSteps;
+import utils.DriverFactory;
+import utils.DurationStore;
+import utils.FixtureServer;
+import utils.SessionRegistry;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Load mode: runs the EndToEnd.feature journey as concurrent virtual users.
+ *
+ * The scenario's steps are bound to the EndToEndSteps methods through their Cucumber
+ * expressions, so the load test is the functional flow and cannot drift from it. Each virtual
+ * user owns a headless session (HtmlUnit by default, recycled with DriverFactory.resetSession
+ * between iterations) against the local stand-in, or -Dload.baseUrl.
+ *
+ * <pre>
+ * mvn -Pload verify -Dload.profile=10s:5,30s:20,10s:0
+ * </pre>
+ *
+ * load.profile is a list of ramp stages "duration:users": the number of active users moves
+ * linearly to each stage's target over its duration. Throughput, latency percentiles and error
+ * rate per step are printed and written to target/load/load-&lt;run&gt;.json. Starting and
+ * resetting sessions are timed as steps of their own, and their failures are journey errors: a
+ * user whose session fails stops and is started again on a new one. The session budget
+ * (-Dsessions.max, see SessionRegistry) is raised to the profile's peak user count, so every
+ * user the profile asks for gets a session.
+ */
+public class LoadRunner {
+    private static final Path FEATURE = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "features", "EndToEnd.feature");
+    private static final Path OUT_DIR = Paths.get(System.getProperty("user.dir"), "target", "load");
+    private static final String JOURNEY = "journey";
+    private static final String SESSION_START = "session start";
+    private static final String SESSION_RESET = "session reset";
+
+    /** One "duration:users" ramp stage. */
+    static class Stage {
+        final long millis;
+        final int users;
+
+        Stage(long millis, int users) {
+            this.millis = millis;
+            this.users = users;
+        }
+
+        // "10s:5,30s:20,10s:0" (s, m or ms suffix, plain number = seconds)
+        static List<Stage> parse(String profile) {
+            List<Stage> stages = new ArrayList<>();
+            for (String part : profile.split(",")) {
+                String[] kv = part.trim().split(":");
+                if (kv.length != 2) throw new IllegalArgumentException("Bad load.profile stage '" + part + "', expected duration:users");
+                String d = kv[0].trim().toLowerCase(Locale.ROOT);
+                long ms;
+                if (d.endsWith("ms")) ms = Long.parseLong(d.substring(0, d.length() - 2));
+                else if (d.endsWith("m")) ms = Long.parseLong(d.substring(0, d.length() - 1)) * 60_000;
+                else if (d.endsWith("s")) ms = Long.parseLong(d.substring(0, d.length() - 1)) * 1000;
+                else ms = Long.parseLong(d) * 1000;
+                stages.add(new Stage(ms, Integer.parseInt(kv[1].trim())));
+            }
+            return stages;
+        }
+
+        // most users active at once: stages ramp linearly, so the peak is a stage target
+        static int peakUsers(List<Stage> stages) {
+            int peak = 0;
+            for (Stage s : stages) peak = Math.max(peak, s.users);
+            return peak;
+        }
+    }
+
+    /** A feature step bound to its step-definition method and arguments. */
+    static class BoundStep {
+        final String text;
+        final Method method;
+        final Object[] args;
+
+        BoundStep(String text, Method method, Object[] args) {
+            this.text = text;
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    /** Latencies and errors of one step (or the whole journey). */
+    static class Stats {
+        final List<Double> millis = Collections.synchronizedList(new ArrayList<>());
+        final Set<String> sampleErrors = Collections.synchronizedSet(new LinkedHashSet<>());
+        volatile int errors;
+
+        synchronized void record(double ms, Throwable error) {
+            if (error == null) {
+                millis.add(ms);
+                return;
+            }
+            errors++;
+            if (sampleErrors.size() < 3) sampleErrors.add(error.getClass().getSimpleName() + ": " + String.valueOf(error.getMessage()).split("\n")[0]);
+        }
+    }
+
+    private final List<Stage> profile;
+    private final String browser;
+    private final String baseUrl;
+    private final List<BoundStep> journey;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet();
+    private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+    private volatile long startMillis;
+    private volatile boolean stopping;
+
+    LoadRunner(List<Stage> profile, String browser, String baseUrl, List<BoundStep> journey) {
+        this.profile = profile;
+        this.browser = browser;
+        this.baseUrl = baseUrl;
+        this.journey = journey;
+        stats.put(SESSION_START, new Stats());
+        stats.put(SESSION_RESET, new Stats());
+        for (BoundStep s : journey) stats.put(s.text, new Stats());
+        stats.put(JOURNEY, new Stats());
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Stage> profile = Stage.parse(System.getProperty("load.profile", "10s:5,30s:5,5s:0"));
+        String browser = System.getProperty("load.browser", DriverFactory.FAST_PATH_BROWSER);
+        String baseUrl = System.getProperty("load.baseUrl", "");
+        if (baseUrl.isBlank()) baseUrl = FixtureServer.start();
+        if (!baseUrl.endsWith("/")) baseUrl += "/";
+        int peak = Stage.peakUsers(profile);
+        if (peak > SessionRegistry.maxSessions()) {
+            System.out.println("DEBUG: Session budget raised from " + SessionRegistry.maxSessions() + " to the profile's peak of " + peak + " users");
+            System.setProperty("sessions.max", String.valueOf(peak));
+        }
+
+        List<BoundStep> journey = bind(readScenario(FEATURE, System.getProperty("load.scenario")));
+        LoadRunner runner = new LoadRunner(profile, browser, baseUrl, journey);
+        JSONObject result = runner.run();
+        FixtureServer.stop();
+
+        String maxErrorRate = System.getProperty("load.maxErrorRate", "");
+        double journeyErrorRate = result.getJSONObject("steps").getJSONObject(JOURNEY).getDouble("errorRate");
+        if (!maxErrorRate.isBlank() && journeyErrorRate > Double.parseDouble(maxErrorRate)) {
+            System.err.println("Load run failed: journey error rate " + journeyErrorRate + " > " + maxErrorRate);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    JSONObject run() throws InterruptedException {
+        long total = 0;
+        for (Stage s : profile) total += s.millis;
+        System.out.println("DEBUG: Load run " + DurationStore.RUN_ID + ": " + journey.size() + " steps, " + browser
+            + " against " + baseUrl + " for " + total / 1000 + " s");
+
+        startMillis = System.currentTimeMillis();
+        while (System.currentTimeMillis() - startMillis < total) {
+            int target = targetUsers(System.currentTimeMillis() - startMillis);
+            for (int id = 0; id < target; id++) {
+                if (running.add(id)) {
+                    int vu = id;
+                    threads.add(Thread.ofVirtual().name("vu-" + vu).start(() -> virtualUser(vu)));
+                }
+            }
+            Thread.sleep(200);
+        }
+        stopping = true;
+        for (Thread t : new ArrayList<>(threads)) t.join(120_000);
+
+        JSONObject result = report((System.currentTimeMillis() - startMillis) / 1000.0);
+        System.out.println("DEBUG: Load results -> " + OUT_DIR.resolve("load-" + DurationStore.RUN_ID + ".json"));
+        return result;
+    }
+
+    // active users at a point of the profile; linear ramp inside each stage
+    int targetUsers(long elapsedMillis) {
+        int from = 0;
+        long stageStart = 0;
+        for (Stage s : profile) {
+            if (elapsedMillis < stageStart + s.millis) {
+                double progress = s.millis == 0 ? 1 : (double) (elapsedMillis - stageStart) / s.millis;
+                return (int) Math.round(from + (s.users - from) * progress);
+            }
+            from = s.users;
+            stageStart += s.millis;
+        }
+        return 0;
+    }
+
+    private void virtualUser(int id) {
+        WebDriver session = null;
+        try {
+            long start = System.nanoTime();
+            try {
+                session = DriverFactory.createDriver(browser);
+                stats.get(SESSION_START).record((System.nanoTime() - start) / 1_000_000.0, null);
+            } catch (Exception e) {
+                sessionFailed(SESSION_START, start, e);
+                throw e;
+            }
+            while (!stopping && id < targetUsers(System.currentTimeMillis() - startMillis)) {
+                iteration(session);
+                start = System.nanoTime();
+                try {
+                    DriverFactory.resetSession(session);
+                    stats.get(SESSION_RESET).record((System.nanoTime() - start) / 1_000_000.0, null);
+                } catch (Exception e) {
+                    sessionFailed(SESSION_RESET, start, e);
+                    throw e;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: Virtual user " + id + " stopped: " + e.getMessage());
+        } finally {
+            if (session != null) {
+                try { session.quit(); } catch (Exception ignored) {}
+            }
+            running.remove(id);
+        }
+    }
+
+    // a user without a working session completes no journey: counted against the journey too
+    private void sessionFailed(String step, long startNanos, Exception error) {
+        double ms = (System.nanoTime() - startNanos) / 1_000_000.0;
+        stats.get(step).record(ms, error);
+        stats.get(JOURNEY).record(ms, error);
+    }
+
+    private void iteration(WebDriver session) {
+        EndToEndSteps steps = new EndToEndSteps(session, baseUrl);
+        long journeyStart = System.nanoTime();
+        Throwable failure = null;
+        for (BoundStep step : journey) {
+            long start = System.nanoTime();
+            try {
+                step.method.invoke(steps, step.args);
+            } catch (InvocationTargetException e) {
+                failure = e.getCause();
+            } catch (Exception e) {
+                failure = e;
+            }
+            stats.get(step.text).record((System.nanoTime() - start) / 1_000_000.0, failure);
+            // later steps depend on this one; count the journey as failed and start over
+            if (failure != null) break;
+        }
+        stats.get(JOURNEY).record((System.nanoTime() - journeyStart) / 1_000_000.0, failure);
+    }
+
+    private JSONObject report(double seconds) {
+        JSONObject steps = new JSONObject();
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%n%-48s %7s %7s %8s %8s %8s %8s %8s %8s%n",
+            "step", "count", "err%", "rps", "p50", "p90", "p95", "p99", "max"));
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            List<Double> sorted = new ArrayList<>(s.millis);
+            Collections.sort(sorted);
+            int count = sorted.size() + s.errors;
+            double errorRate = count == 0 ? 0 : (double) s.errors / count;
+
+            JSONObject o = new JSONObject();
+            o.put("count", count);
+            o.put("errors", s.errors);
+            o.put("errorRate", Math.round(errorRate * 10000) / 10000.0);
+            o.put("throughputPerSec", Math.round(count / Math.max(seconds, 0.001) * 100) / 100.0);
+            for (int p : new int[] {50, 90, 95, 99}) o.put("p" + p + "Ms", Math.round(percentile(sorted, p)));
+            o.put("maxMs", sorted.isEmpty() ? 0 : Math.round(sorted.get(sorted.size() - 1)));
+            o.put("sampleErrors", new JSONArray(s.sampleErrors));
+            steps.put(e.getKey(), o);
+
+            table.append(String.format(Locale.ROOT, "%-48s %7d %6.1f%% %8.2f %8d %8d %8d %8d %8d%n",
+                e.getKey().length() > 48 ? e.getKey().substring(0, 45) + "..." : e.getKey(),
+                count, errorRate * 100, o.getDouble("throughputPerSec"),
+                o.getLong("p50Ms"), o.getLong("p90Ms"), o.getLong("p95Ms"), o.getLong("p99Ms"), o.getLong("maxMs")));
+        }
+        System.out.println(table);
+
+        JSONObject result = new JSONObject();
+        result.put("run", DurationStore.RUN_ID);
+        result.put("browser", browser);
+        result.put("baseUrl", baseUrl);
+        result.put("profile", System.getProperty("load.profile", "10s:5,30s:5,5s:0"));
+        result.put("durationSec", Math.round(seconds * 10) / 10.0);
+        result.put("steps", steps);
+        try {
+            Files.createDirectories(OUT_DIR);
+            Files.writeString(OUT_DIR.resolve("load-" + DurationStore.RUN_ID + ".json"), result.toString(2), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write load results: " + e.getMessage());
+        }
+        return result;
+    }
+
+    static double percentile(List<Double> sorted, int p) {
+        if (sorted.isEmpty()) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    /** Background + scenario step texts (keywords stripped); first scenario unless one is named. */
+    static List<String> readScenario(Path feature, String scenarioName) throws Exception {
+        List<String> background = new ArrayList<>();
+        List<String> scenario = new ArrayList<>();
+        List<String> target = null;
+        boolean found = false;
+        for (String raw : Files.readAllLines(feature, StandardCharsets.UTF_8)) {
+            String line = raw.trim();
+            if (line.startsWith("Background:")) {
+                target = background;
+            } else if (line.startsWith("Scenario:") || line.startsWith("Scenario Outline:")) {
+                String name = line.substring(line.indexOf(':') + 1).trim();
+                boolean wanted = !found && (scenarioName == null || scenarioName.equals(name));
+                target = wanted ? scenario : null;
+                found |= wanted;
+            } else if (target != null && line.matches("^(Given|When|Then|And|But|\\*) .*")) {
+                target.add(line.substring(line.indexOf(' ') + 1).trim());
+            }
+        }
+        if (scenario.isEmpty()) throw new IllegalStateException("No scenario" + (scenarioName != null ? " '" + scenarioName + "'" : "") + " in " + feature);
+        background.addAll(scenario);
+        return background;
+    }
+
+    /** Matches each step text against the Cucumber expressions on EndToEndSteps. */
+    static List<BoundStep> bind(List<String> stepTexts) throws Exception {
+        ExpressionFactory factory = new ExpressionFactory(new ParameterTypeRegistry(Locale.ENGLISH));
+        List<BoundStep> bound = new ArrayList<>();
+        for (String text : stepTexts) {
+            BoundStep match = null;
+            for (Method m : EndToEndSteps.class.getMethods()) {
+                for (Annotation a : m.getAnnotations()) {
+                    if (!a.annotationType().getPackageName().equals("io.cucumber.java.en")) continue;
+                    String pattern = (String) a.annotationType().getMethod("value").invoke(a);
+                    Expression expression = factory.createExpression(pattern);
+                    List<Argument<?>> args = expression.match(text);
+                    if (args == null) continue;
+                    Object[] values = new Object[args.size()];
+                    for (int i = 0; i < values.length; i++) values[i] = args.get(i).getValue();
+                    match = new BoundStep(text, m, values);
+                }
+            }
+            if (match == null) throw new IllegalStateException("No step definition in EndToEndSteps for: " + text);
+            bound.add(match);
+        }
+        return bound;
+    }
+}
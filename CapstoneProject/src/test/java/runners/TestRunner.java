@@ -3,14 +3,21 @@ package runners;
 import java.time.Duration;
 
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Listeners;
 
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import utils.DriverFactory;
+import utils.SessionRegistry;
+import utils.SuiteListener;
+import utils.TestImpact;
+
+import java.util.Arrays;
 
 @CucumberOptions(
     features = "src/test/resources/features",
@@ -18,22 +25,37 @@ import io.github.bonigarcia.wdm.WebDriverManager;
     plugin = {
         "pretty",
         "html:target/cucumber-reports.html",
-        "json:target/cucumber.json"
+        "json:target/cucumber.json",
+        "utils.StepTimingPlugin"
     },
     monochrome = true
 )
+@Listeners(SuiteListener.class)
 public class TestRunner extends AbstractTestNGCucumberTests {
 	 public static WebDriver driver;
+	 // swapped for the fixture server by @fastpath scenarios (see Hooks)
+	 public static String baseUrl = "https://bstackdemo.com/";
 
 	    @BeforeClass(alwaysRun = true)
 	    public void globalSetUp() {
-	        WebDriverManager.chromedriver().setup();
-	        ChromeOptions options = new ChromeOptions();
-	        driver = new ChromeDriver(options);
-	        driver.manage().window().maximize();
+	        // local Chrome, or a RemoteWebDriver when grid.url is set
+	        driver = DriverFactory.createDriver("chrome");
+	        SessionRegistry.keep(driver);
 	        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
 	    }
 
+	    // with -Dimpact.base only scenarios touched by the diff are run
+	    @Override
+	    @DataProvider
+	    public Object[][] scenarios() {
+	        return Arrays.stream(super.scenarios())
+	                .filter(row -> {
+	                    Pickle p = ((PickleWrapper) row[0]).getPickle();
+	                    return TestImpact.isAffected(TestImpact.scenarioId(p.getUri().toString(), p.getName()));
+	                })
+	                .toArray(Object[][]::new);
+	    }
+
 	    @AfterClass(alwaysRun = true)
 	    public void globalTearDown() {
 	        if (driver != null) {
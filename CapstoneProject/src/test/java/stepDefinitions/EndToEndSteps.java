@@ -10,29 +10,61 @@ import pages.ProductPage;
 import pages.CartPage;
 import pages.CheckoutPage;
 import runners.TestRunner;
+import utils.CartState;
+import utils.FlowCheckpoints;
 
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 public class EndToEndSteps {
-    WebDriver driver = TestRunner.driver;
-    WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(12));
+    WebDriver driver;
+    String baseUrl;
+    WebDriverWait wait;
 
-    LoginPage loginPage = new LoginPage(driver);
-    ProductPage productPage = new ProductPage(driver);
-    CartPage cartPage = new CartPage(driver);
-    CheckoutPage checkoutPage = new CheckoutPage(driver);
+    LoginPage loginPage;
+    ProductPage productPage;
+    CartPage cartPage;
+    CheckoutPage checkoutPage;
+
+    public EndToEndSteps() {
+        this(TestRunner.driver, TestRunner.baseUrl);
+    }
+
+    // the load runner drives the same steps on its own sessions
+    public EndToEndSteps(WebDriver driver, String baseUrl) {
+        this.driver = driver;
+        this.baseUrl = baseUrl;
+        this.wait = new WebDriverWait(driver, Duration.ofSeconds(12));
+        this.loginPage = new LoginPage(driver);
+        this.productPage = new ProductPage(driver);
+        this.cartPage = new CartPage(driver);
+        this.checkoutPage = new CheckoutPage(driver);
+    }
+
+    // scenario checkpoints are started by Hooks; skip steps already done in a resumed run
+    private boolean alreadyDone(String checkpointName) {
+        FlowCheckpoints flow = FlowCheckpoints.current();
+        return flow != null && !flow.shouldRun(checkpointName);
+    }
+
+    private void checkpoint(String checkpointName) {
+        FlowCheckpoints flow = FlowCheckpoints.current();
+        if (flow != null) flow.checkpoint(checkpointName);
+    }
 
     @Given("user launches browser")
     public void user_launches_browser() {
-        driver.get("https://bstackdemo.com/");
+        if (alreadyDone("launched")) return;
+        driver.get(baseUrl);
         driver.manage().window().maximize();
         wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("div.shelf-item")));
+        checkpoint("launched");
     }
 
     @And("user logs in with {string} and {string}")
     public void user_logs_in_with_and(String username, String password) {
+        if (alreadyDone("loggedIn")) return;
         loginPage.openLoginForm();
         loginPage.selectUsername(username);
         loginPage.selectPassword(password);
@@ -43,32 +75,47 @@ public class EndToEndSteps {
             d.findElements(By.xpath("//*[contains(text(),'" + username + "')]")).size() > 0
             || d.findElements(By.cssSelector("#logout, .logout-link, a.logout")).size() > 0
         );
+        checkpoint("loggedIn");
     }
 
 
     @When("user adds {string} to the cart")
     public void user_adds_to_the_cart(String productName) {
+        if (alreadyDone("addedToCart")) return;
         boolean added = productPage.addProductToCartByName(productName);
         Assert.assertTrue(added, "Failed to add product: " + productName);
 
         // Wait until cart has at least 1 item
         wait.until(d -> d.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0);
         System.out.println("DEBUG: Product added to cart: " + productName);
+        checkpoint("addedToCart");
+    }
+    // for scenarios about what follows the cart: seeds it in one page load instead of clicking
+    @When("user has {string} in the cart")
+    public void user_has_in_the_cart(String productName) {
+        if (alreadyDone("addedToCart")) return;
+        CartState.cartWithItems(driver, baseUrl, productName);
+        wait.until(d -> d.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0);
+        checkpoint("addedToCart");
     }
+
     @When("user adds {string} again to the cart")
     public void user_adds_again_to_the_cart(String productName) {
+        if (alreadyDone("addedAgain")) return;
         boolean added = productPage.addProductToCartByName(productName);
         Assert.assertTrue(added, "Failed to add product: " + productName);
 
         // Wait until cart has at least 1 item (reuse your existing wait logic)
         wait.until(d -> d.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0);
         System.out.println("DEBUG: Product added to cart (again): " + productName);
+        checkpoint("addedAgain");
     }
 
 
 
     @And("user removes the product from the cart")
     public void user_removes_the_product_from_the_cart() {
+        if (alreadyDone("removedFromCart")) return;
         By cartItems = By.cssSelector("div.float-cart__shelf-container .shelf-item");
         By removeBtn = By.cssSelector("div.float-cart__shelf-container .shelf-item .shelf-item__del");
 
@@ -90,6 +137,7 @@ public class EndToEndSteps {
 
         Assert.assertTrue(cartEmpty, "Cart is not empty after removing product");
         System.out.println("DEBUG: Cart is empty after removing the product ✅");
+        checkpoint("removedFromCart");
     }
 
 
@@ -97,20 +145,34 @@ public class EndToEndSteps {
 
     @And("user proceeds to checkout")
     public void user_proceeds_to_checkout() {
-        driver.get("https://bstackdemo.com/checkout");
+        if (alreadyDone("atCheckout")) return;
+        driver.get(baseUrl + "checkout");
         checkoutPage.waitForForm();
+        checkpoint("atCheckout");
     }
 
     @And("user fills shipping details")
     public void user_fills_shipping_details() {
+        if (alreadyDone("shippingSubmitted")) return;
         checkoutPage.fillShippingForm("Hari", "J", "123 Demo St", "CA", "90001");
         checkoutPage.submitShipping();
+        checkpoint("shippingSubmitted");
+    }
+
+    @And("user ships to {string}, {string} {string}")
+    public void user_ships_to(String address, String province, String postCode) {
+        if (alreadyDone("shippingSubmitted")) return;
+        checkoutPage.fillShippingForm("Hari", "J", address, province, postCode);
+        checkoutPage.submitShipping();
+        checkpoint("shippingSubmitted");
     }
 
     @Then("user should reach the confirmation page")
     public void user_should_reach_the_confirmation_page() {
+        if (alreadyDone("confirmed")) return;
         boolean reached = wait.until(d -> d.getCurrentUrl().contains("/confirmation") || d.findElements(By.id("downloadpdf")).size() > 0);
         if (!reached) throw new RuntimeException("Did not reach confirmation page. Current URL: " + driver.getCurrentUrl());
+        checkpoint("confirmed");
     }
 
     @And("user logs out successfully")
@@ -178,7 +240,7 @@ public class EndToEndSteps {
 
         // final fallback: navigate to home page and attempt logout (some apps show logout on homepage)
         if (!clicked) {
-            driver.get("https://bstackdemo.com/");
+            driver.get(baseUrl);
             // small wait for page load
             try { Thread.sleep(800); } catch (InterruptedException ignored) {}
             for (By loc : logoutLocators) {
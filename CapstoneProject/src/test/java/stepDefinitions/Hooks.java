@@ -0,0 +1,99 @@
+package stepDefinitions;
+
+import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.Before;
+import io.cucumber.java.Scenario;
+import org.openqa.selenium.WebDriver;
+import runners.TestRunner;
+import utils.BrowserLogs;
+import utils.DriverFactory;
+import utils.FixtureServer;
+import utils.FlowCheckpoints;
+import utils.HarRecorder;
+import utils.ScreenRecorder;
+import utils.SessionRegistry;
+import utils.TestImpact;
+import utils.TestSessions;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class Hooks {
+    private static WebDriver fastPathDriver;
+    private WebDriver browserDriver;
+    private String browserBaseUrl;
+
+    // @fastpath scenarios run on the in-process HtmlUnit session against the local stand-in;
+    // order 0 so the flow and the step classes below already see the swapped driver
+    @Before(value = "@fastpath", order = 0)
+    public void useFastPath() {
+        if (!DriverFactory.isFastPathEnabled()) return;
+        if (fastPathDriver == null) {
+            fastPathDriver = DriverFactory.createDriver(DriverFactory.FAST_PATH_BROWSER);
+            SessionRegistry.keep(fastPathDriver);
+        }
+        browserDriver = TestRunner.driver;
+        browserBaseUrl = TestRunner.baseUrl;
+        TestRunner.driver = fastPathDriver;
+        TestRunner.baseUrl = FixtureServer.start();
+    }
+
+    @After(value = "@fastpath", order = 0)
+    public void leaveFastPath() {
+        // the next scenario (or Examples row) starts logged out with an empty cart
+        if (fastPathDriver != null) {
+            try {
+                DriverFactory.resetSession(fastPathDriver);
+            } catch (Exception e) {
+                System.err.println("DEBUG: Fast-path reset failed, relaunching: " + e.getMessage());
+                try { fastPathDriver.quit(); } catch (Exception ignored) {}
+                fastPathDriver = null;
+            }
+        }
+        if (browserDriver == null) return;
+        TestRunner.driver = browserDriver;
+        TestRunner.baseUrl = browserBaseUrl;
+    }
+
+    @AfterAll
+    public static void quitFastPath() {
+        if (fastPathDriver != null) {
+            try { fastPathDriver.quit(); } catch (Exception ignored) {}
+            fastPathDriver = null;
+        }
+        FixtureServer.stop();
+    }
+
+
+    // each scenario is a checkpointed flow; steps record/skip their own checkpoints
+    @Before
+    public void beginFlow(Scenario scenario) {
+        TestImpact.startTest(TestImpact.scenarioId(scenario.getUri().toString(), scenario.getName()));
+        TestSessions.startTest("scenario_" + scenarioKey(scenario));
+        SessionRegistry.startTest("scenario_" + scenarioKey(scenario));
+        FlowCheckpoints.begin(TestRunner.driver, scenarioKey(scenario));
+    }
+
+    // "<feature>:<line> <name>": one per Examples row (rows share the name) and the same in every
+    // run, unlike the pickle id, so a checkpoint can be resumed by the next run
+    private static String scenarioKey(Scenario scenario) {
+        String uri = scenario.getUri().toString();
+        return uri.substring(uri.lastIndexOf('/') + 1) + ":" + scenario.getLine() + " " + scenario.getName();
+    }
+
+    @After
+    public void endFlow(Scenario scenario) {
+        for (Path har : HarRecorder.endTest()) scenario.log("Network capture: " + har);
+        List<String> leaked = SessionRegistry.endTest();
+        if (!leaked.isEmpty()) scenario.log("Driver sessions left open: " + leaked);
+        if (scenario.isFailed()) {
+            List<String> browserLog = BrowserLogs.entries();
+            if (!browserLog.isEmpty()) scenario.attach(String.join("\n", browserLog), "text/plain", "browser log");
+            for (Path recording : ScreenRecorder.save("scenario_" + scenarioKey(scenario))) scenario.log("Screen recording: " + recording);
+        }
+        FlowCheckpoints flow = FlowCheckpoints.current();
+        if (flow != null && !scenario.isFailed()) flow.complete();
+        TestSessions.endTest();
+    }
+}
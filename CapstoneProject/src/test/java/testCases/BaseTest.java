@@ -3,39 +3,93 @@ package testCases;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import utils.DriverFactory;
+import utils.FastPath;
+import utils.FixtureServer;
+import utils.SessionRegistry;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 
 public class BaseTest {
+    protected static final String HOME_URL = "https://bstackdemo.com/";
+
     protected static WebDriver driver;
+    // home page of the app under test for the current method (fixture server on the fast path)
+    protected static String baseUrl = HOME_URL;
+
+    private static WebDriver browserDriver;
+    private static WebDriver fastPathDriver;
+    private static boolean onFastPath;
 
     @BeforeSuite(alwaysRun = true)
     public void beforeSuite() {
-        WebDriverManager.chromedriver().setup();
-        ChromeOptions opts = new ChromeOptions();
-        driver = new ChromeDriver(opts);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-        driver.manage().window().maximize();
-        driver.get("https://bstackdemo.com/");
+        driver = newBrowserDriver();
+        driver.get(HOME_URL);
+    }
+
+    // local Chrome, or a RemoteWebDriver when grid.url is set
+    private static WebDriver newBrowserDriver() {
+        browserDriver = DriverFactory.createDriver("chrome");
+        SessionRegistry.keep(browserDriver);
+        browserDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        return browserDriver;
+    }
+
+    // @FastPath tests get the in-process HtmlUnit session and the local stand-in site
+    @BeforeMethod(alwaysRun = true)
+    public void selectDriver(Method method) {
+        onFastPath = DriverFactory.isFastPathEnabled()
+                && (method.isAnnotationPresent(FastPath.class) || method.getDeclaringClass().isAnnotationPresent(FastPath.class));
+        if (onFastPath) {
+            if (fastPathDriver == null) {
+                fastPathDriver = DriverFactory.createDriver(DriverFactory.FAST_PATH_BROWSER);
+                SessionRegistry.keep(fastPathDriver);
+            }
+            driver = fastPathDriver;
+            baseUrl = FixtureServer.start();
+        } else {
+            driver = browserDriver != null ? browserDriver : newBrowserDriver();
+            baseUrl = HOME_URL;
+        }
     }
 
-    // 👇 Add pause after every test
+    // 👇 Add pause after every test (not needed without a visible browser)
     @AfterMethod(alwaysRun = true)
     public void pauseAfterEachTest() {
+        if (onFastPath) return;
         try {
             Thread.sleep(4000); // 4s pause
         } catch (InterruptedException ignored) {}
     }
 
+    // sessions are recycled between tests: same browser, but no cart/login/windows left behind
+    @AfterMethod(alwaysRun = true)
+    public void resetSessionAfterEachTest() {
+        WebDriver session = onFastPath ? fastPathDriver : browserDriver;
+        try {
+            DriverFactory.resetSession(session);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Session reset failed, relaunching for the next test: " + e.getMessage());
+            try { if (session != null) session.quit(); } catch (Exception ignored) {}
+            if (session == fastPathDriver) fastPathDriver = null;
+            else browserDriver = null;
+        }
+    }
+
     @AfterSuite(alwaysRun = true)
     public void afterSuite() {
-        if (driver != null) {
-            driver.quit();
-            driver = null;
+        if (browserDriver != null) {
+            browserDriver.quit();
+            browserDriver = null;
+        }
+        if (fastPathDriver != null) {
+            fastPathDriver.quit();
+            fastPathDriver = null;
         }
+        driver = null;
+        FixtureServer.stop();
     }
 }
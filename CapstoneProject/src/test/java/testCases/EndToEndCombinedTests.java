@@ -1,17 +1,13 @@
 package testCases;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
@@ -30,15 +26,27 @@ import org.testng.annotations.Test;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
+import pages.AsyncCartPage;
+import pages.AsyncSession;
 import pages.CartPage;
 import pages.CheckoutPage;
 import pages.HomePage;
 import pages.LoginPage;
 import pages.ProductPage;
 import pages.SearchPage;
+import utils.ArtifactStore;
+import utils.CartState;
 import utils.ConfigReader;
+import utils.CoveringArray;
+import utils.Domains;
 import utils.DriverFactory;
+import utils.FastPath;
+import utils.FlowCheckpoints;
+import utils.PagePerformance;
+import utils.PdfCapture;
+import utils.PdfReceipt;
 import utils.ReportUtils;
+import utils.VisualCompare;
 
 public class EndToEndCombinedTests extends BaseTest {
 
@@ -49,21 +57,25 @@ public class EndToEndCombinedTests extends BaseTest {
     @Test(groups = {"crossbrowser"}, priority = 1)
     @Parameters("browser")
     public void verifyHomePageLoads(String browser) {
-        ReportUtils.initReports();
-        ReportUtils.createTest("Verify Homepage in " + browser);
-
+        // the report test is created by SuiteListener
         WebDriver localDriver = driver;
         try {
             localDriver.get("https://bstackdemo.com/");
             String title = localDriver.getTitle();
             Assert.assertTrue(title != null && title.contains("StackDemo"), "Homepage did not load correctly!");
             ReportUtils.logPass("Homepage loaded successfully in " + browser);
+            // captured by the DriverFactory listener on this thread's driver.get; measured here when it is off
+            PagePerformance.Snapshot home = PagePerformance.last("home");
+            if (home == null) home = PagePerformance.capture(localDriver, "home");
+            Assert.assertNotNull(home, "No page performance captured for the home page");
+            PagePerformance.assertWithinBudget(home);
+            VisualCompare.Result shelf = ReportUtils.compareScreenshot(localDriver, "home-shelf-item-" + browser, By.cssSelector("div.shelf-item"));
+            if (shelf != null) Assert.assertTrue(shelf.matched, "Product shelf differs from baseline: " + shelf);
         } catch (AssertionError e) {
             ReportUtils.logFail("Homepage failed in " + browser);
             try { ReportUtils.captureScreenshot(localDriver, "HomePage_Failure_" + browser); } catch (Exception ignored) {}
+            try { ReportUtils.capturePageSource(localDriver, "HomePage_Failure_" + browser); } catch (Exception ignored) {}
             throw e;
-        } finally {
-            ReportUtils.flushReports();
         }
     }
 
@@ -109,16 +121,15 @@ public class EndToEndCombinedTests extends BaseTest {
 
         HomePage homePage = new HomePage(localDriver);
         SearchPage searchPage = new SearchPage(localDriver);
-        Files.createDirectories(Paths.get("screenshots"));
 
-        List<String> before = searchPage.getProductTitles().stream()
-                .map(WebElement::getText).sorted().collect(Collectors.toList());
+        List<String> before = searchPage.getProductTitleTexts().stream()
+                .sorted().collect(Collectors.toList());
 
         homePage.enterText(product);
         homePage.clickSearch();
 
-        List<String> after = searchPage.getProductTitles().stream()
-                .map(WebElement::getText).sorted().collect(Collectors.toList());
+        List<String> after = searchPage.getProductTitleTexts().stream()
+                .sorted().collect(Collectors.toList());
         boolean isDisplayed = after.stream().anyMatch(t -> t.toLowerCase().contains(product.toLowerCase()));
 
         Assert.assertTrue(!after.equals(before) && isDisplayed,
@@ -153,12 +164,21 @@ public class EndToEndCombinedTests extends BaseTest {
 
         Assert.assertTrue(searchPage.verifyVendorOnly(vendor), "Vendor check failed: " + vendor);
         Assert.assertTrue(searchPage.verifySortingByControl(sortOrder), "Sort check failed: " + sortOrder);
+
+        // the shelf re-renders asynchronously after filter/sort, so poll the bulk snapshot
+        boolean shelfOk = false;
+        try {
+            shelfOk = new WebDriverWait(localDriver, Duration.ofSeconds(5))
+                .until(d -> searchPage.verifyResultsMatchVendor(vendor) && searchPage.verifyResultsSortedBy(sortOrder));
+        } catch (Exception ignored) {}
+        Assert.assertTrue(shelfOk, "Shelf is not " + vendor + "-only or not sorted '" + sortOrder + "': " + searchPage.getShelfItems());
     }
 
+    @FastPath
     @Test(groups = {"product"}, dependsOnGroups = {"filter"}, priority = 5)
     public void addFirstProductToCartTest() throws InterruptedException {
         WebDriver localDriver = driver;
-        localDriver.get("https://bstackdemo.com/");
+        localDriver.get(baseUrl);
 
         new WebDriverWait(localDriver, Duration.ofSeconds(10))
             .until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("div.shelf-item")));
@@ -174,10 +194,11 @@ public class EndToEndCombinedTests extends BaseTest {
         Assert.assertTrue(cartPage.isCartOpen(), "Cart did not open or no items present.");
     }
 
+    @FastPath
     @Test(groups = {"product"}, dependsOnGroups = {"filter"}, priority = 6)
     public void addNamedProductToCartTest() throws InterruptedException {
         WebDriver localDriver = driver;
-        localDriver.get("https://bstackdemo.com/");
+        localDriver.get(baseUrl);
 
         ProductPage productPage = new ProductPage(localDriver);
         CartPage cartPage = new CartPage(localDriver);
@@ -197,24 +218,16 @@ public class EndToEndCombinedTests extends BaseTest {
     }
 
     // CART tests
+    @FastPath
     @Test(groups = {"cart"}, dependsOnGroups = {"product"}, priority = 7)
     public void increaseQuantityAndVerifySubtotal() throws InterruptedException {
         WebDriver localDriver = driver;
-        localDriver.get("https://bstackdemo.com/");
-
-        ProductPage productPage = new ProductPage(localDriver);
         CartPage cartPage = new CartPage(localDriver);
 
+        // adding to the cart is covered by the product tests; start with it filled
         String name = "iPhone 12 Mini";
-        boolean added = productPage.addProductToCartByName(name);
-        Assert.assertTrue(added, "Product add failed");
-
-        try {
-            if (localDriver.findElements(By.cssSelector("div.float-cart")).size() == 0) {
-                if (localDriver.findElements(By.cssSelector("div.float-cart__header")).size() > 0)
-                    localDriver.findElement(By.cssSelector("div.float-cart__header")).click();
-            }
-        } catch (Exception ignored) {}
+        CartState.cartWithItems(localDriver, baseUrl, name);
+        cartPage.openCart();
 
         String beforeSub = cartPage.getSubtotal();
         cartPage.increaseQtyForItem(name, 1);
@@ -222,24 +235,15 @@ public class EndToEndCombinedTests extends BaseTest {
         Assert.assertTrue(!afterSub.equals(beforeSub) && !afterSub.isEmpty(), "Subtotal did not change after increasing quantity");
     }
 
+    @FastPath
     @Test(groups = {"cart"}, dependsOnGroups = {"product"}, priority = 8)
     public void removeItemFromCartTest() throws InterruptedException {
         WebDriver localDriver = driver;
-        localDriver.get("https://bstackdemo.com/");
-
-        ProductPage productPage = new ProductPage(localDriver);
         CartPage cartPage = new CartPage(localDriver);
 
         String productName = "iPhone 12 Mini";
-        boolean added = productPage.addProductToCartByName(productName);
-        Assert.assertTrue(added, "Product was not added to cart");
-
-        try {
-            if (localDriver.findElements(By.cssSelector("div.float-cart")).size() == 0) {
-                if (localDriver.findElements(By.cssSelector("div.float-cart__header")).size() > 0)
-                    localDriver.findElement(By.cssSelector("div.float-cart__header")).click();
-            }
-        } catch (Exception ignored) {}
+        CartState.cartWithItems(localDriver, baseUrl, productName);
+        cartPage.openCart();
 
         new WebDriverWait(localDriver, Duration.ofSeconds(8))
             .until(d -> d.findElements(By.cssSelector("div.float-cart .shelf-item")).size() > 0);
@@ -251,10 +255,11 @@ public class EndToEndCombinedTests extends BaseTest {
         Assert.assertFalse(cartPage.isItemPresent(productName), "Item still present after removal.");
     }
 
+    @FastPath
     @Test(groups = {"cart"}, dependsOnGroups = {"product"}, priority = 9)
     public void addSecondItemToCartTest() throws InterruptedException {
         WebDriver localDriver = driver;
-        localDriver.get("https://bstackdemo.com/");
+        localDriver.get(baseUrl);
 
         ProductPage productPage = new ProductPage(localDriver);
         CartPage cartPage = new CartPage(localDriver);
@@ -283,6 +288,77 @@ public class EndToEndCombinedTests extends BaseTest {
         Assert.assertTrue(cartPage.isItemPresent(second), "Second item not found in cart");
     }
 
+    /*
+       Async page objects: two sessions, each seeded with its own cart, driven from this one
+       thread through AsyncSession. Calls on a session run in order, the sessions side by side.
+    */
+    @FastPath
+    @Test(groups = {"cart"}, dependsOnGroups = {"product"}, priority = 9)
+    public void asyncCartsOnTwoSessions() throws Exception {
+        WebDriver first = driver;
+        String url = baseUrl;
+        WebDriver second = DriverFactory.createDriver(DriverFactory.isFastPathEnabled() ? DriverFactory.FAST_PATH_BROWSER : "chrome");
+        try {
+            AsyncSession sessionA = new AsyncSession(first);
+            AsyncSession sessionB = new AsyncSession(second);
+            AsyncCartPage cartA = new AsyncCartPage(sessionA);
+            AsyncCartPage cartB = new AsyncCartPage(sessionB);
+
+            // nothing below blocks until the join
+            sessionA.run(() -> CartState.cartWithItems(first, url, "iPhone 12 Mini"));
+            sessionB.run(() -> CartState.cartWithItems(second, url, "Galaxy S9", "Galaxy S9"));
+            cartA.openCart();
+            cartB.openCart();
+            CompletableFuture<List<String>> itemsA = cartA.getCartItemNames();
+            CompletableFuture<Integer> quantityB = cartB.getQuantityForItem("Galaxy S9");
+            CompletableFuture.allOf(itemsA, quantityB).get(60, TimeUnit.SECONDS);
+
+            String namesA = String.join(" | ", itemsA.join());
+            Assert.assertTrue(namesA.contains("iPhone 12 Mini") && !namesA.contains("Galaxy S9"),
+                "Session A should hold only its own cart: " + namesA);
+            Assert.assertEquals((int) quantityB.join(), 2, "Quantity of Galaxy S9 in session B");
+        } finally {
+            second.quit();
+        }
+    }
+
+    /*
+       Combinatorial checkout on the fast path: user x vendor x sort x address x province x postcode
+       from testdata/Domains.xlsx, pairwise-reduced (17 of 576 combinations)
+    */
+    @FastPath
+    @Domains(excel = "testdata/Domains.xlsx", sheet = "Checkout")
+    @Test(dataProvider = "covering", dataProviderClass = CoveringArray.class, groups = {"combinatorial"}, priority = 12)
+    public void checkoutAcrossCombinations(String user, String vendor, String sortOrder, String address, String province, String postCode) {
+        WebDriver localDriver = driver;
+        WebDriverWait wait = new WebDriverWait(localDriver, Duration.ofSeconds(10));
+        localDriver.get(baseUrl);
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("div.shelf-item")));
+
+        LoginPage loginPage = new LoginPage(localDriver);
+        loginPage.openLoginForm();
+        loginPage.selectUsername(user);
+        loginPage.selectPassword("testingisfun99");
+        loginPage.clickLogin();
+        wait.until(d -> d.findElements(By.xpath("//*[contains(text(),'" + user + "')]")).size() > 0);
+
+        SearchPage searchPage = new SearchPage(localDriver);
+        searchPage.applyVendorFilter(vendor);
+        searchPage.selectSortOrder(sortOrder);
+        wait.until(d -> searchPage.verifyResultsMatchVendor(vendor) && searchPage.verifyResultsSortedBy(sortOrder));
+
+        new ProductPage(localDriver).addFirstProductToCart();
+        wait.until(d -> d.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0);
+
+        localDriver.get(baseUrl + "checkout");
+        CheckoutPage checkoutPage = new CheckoutPage(localDriver);
+        checkoutPage.fillShippingForm("Harini", "J", address, province, postCode);
+        checkoutPage.submitShipping();
+
+        boolean confirmed = wait.until(d -> d.getCurrentUrl().contains("/confirmation"));
+        Assert.assertTrue(confirmed, "No confirmation for " + user + "/" + vendor + "/" + sortOrder + " shipping to " + address + ", " + province + " " + postCode);
+    }
+
     @Test(groups = {"checkout"}, dependsOnGroups = {"cart","login"}, priority = 10)
     public void checkoutShippingAndSubmitTest() throws InterruptedException {
      WebDriver driver = DriverFactory.initDriver("chrome");
@@ -296,50 +372,55 @@ public class EndToEndCombinedTests extends BaseTest {
          shortWait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("div.shelf-item")));
 
          // create page objects after navigation
-         ProductPage productPage = new ProductPage(driver);
          CheckoutPage checkoutPage = new CheckoutPage(driver);
          LoginPage loginPage = new LoginPage(driver);
 
          WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-
-         
-         loginPage.openLoginForm();
-
-         // choose username/password and click login
-         loginPage.selectUsername("demouser");   
-         loginPage.selectPassword("testingisfun99");
-         loginPage.clickLogin();
-
-         
-         try {
-             wait.until(d -> d.getTitle().toLowerCase().contains("stackdemo") || d.findElements(By.cssSelector(".user-info, #user, .logout")).size() > 0);
-         } catch (Exception e) {
-             System.out.println("DEBUG: Post-login signal not detected within timeout. Current title: " + driver.getTitle());
+         FlowCheckpoints flow = FlowCheckpoints.begin(driver, "checkoutShippingAndSubmit");
+
+         if (flow.shouldRun("loggedIn")) {
+             loginPage.openLoginForm();
+
+             // choose username/password and click login
+             loginPage.selectUsername("demouser");   
+             loginPage.selectPassword("testingisfun99");
+             loginPage.clickLogin();
+
+             
+             try {
+                 wait.until(d -> d.getTitle().toLowerCase().contains("stackdemo") || d.findElements(By.cssSelector(".user-info, #user, .logout")).size() > 0);
+             } catch (Exception e) {
+                 System.out.println("DEBUG: Post-login signal not detected within timeout. Current title: " + driver.getTitle());
+             }
+
+             // wait a brief moment to ensure page is stable
+             Thread.sleep(500);
+             flow.checkpoint("loggedIn");
          }
 
-         // wait a brief moment to ensure page is stable
-         Thread.sleep(500);
-
-         // add first product to cart 
-         productPage.addFirstProductToCart();
-
-         // wait for cart items to appear (cart shelf item)
-         try {
-             wait.until(ExpectedConditions.numberOfElementsToBeMoreThan(
-                     By.cssSelector("div.float-cart__shelf-container .shelf-item"), 0));
-         } catch (Exception e) {
-             System.err.println("DEBUG: Cart did not update after adding product. Page title: " + driver.getTitle());
-             System.err.println("DEBUG: Current URL: " + driver.getCurrentUrl());
-             // fail early with helpful message
-             Assert.fail("Cart did not update after adding product.");
+         if (flow.shouldRun("cartReady")) {
+             // put the first product straight into the cart; adding is covered by the product tests
+             CartState.cartWithItems(driver, "https://bstackdemo.com/", "iPhone 12");
+
+             // wait for cart items to appear (cart shelf item)
+             try {
+                 wait.until(ExpectedConditions.numberOfElementsToBeMoreThan(
+                         By.cssSelector("div.float-cart__shelf-container .shelf-item"), 0));
+             } catch (Exception e) {
+                 System.err.println("DEBUG: Cart did not update after adding product. Page title: " + driver.getTitle());
+                 System.err.println("DEBUG: Current URL: " + driver.getCurrentUrl());
+                 // fail early with helpful message
+                 Assert.fail("Cart did not update after adding product.");
+             }
+
+             // Optionally verify the cart contains at least one item
+             Assert.assertTrue(
+                 driver.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0,
+                 "Cart has no items after adding product."
+             );
+             flow.checkpoint("cartReady");
          }
 
-         // Optionally verify the cart contains at least one item
-         Assert.assertTrue(
-             driver.findElements(By.cssSelector("div.float-cart__shelf-container .shelf-item")).size() > 0,
-             "Cart has no items after adding product."
-         );
-
          // navigate to checkout page (your existing flow does this)
          driver.get("https://bstackdemo.com/checkout");
 
@@ -364,17 +445,15 @@ public class EndToEndCombinedTests extends BaseTest {
 
          
          Assert.assertTrue(progressed, "After submitting shipping we did not reach payment/confirmation. Current URL: " + driver.getCurrentUrl());
+         flow.complete();
      } finally {
          DriverFactory.quitDriver();
      }
     }
     @Test(groups = {"confirmation"}, dependsOnGroups = {"checkout"}, priority = 11)
     public void fullCheckoutFlow_login_add_checkout_confirm_download_continue_checkNavs_logout() throws Exception {
-        // set download directory for the test (created if missing)
-        String downloads = System.getProperty("user.dir") + "/target/test-downloads";
-        Path downloadDir = Path.of(downloads);
-
-        WebDriver driver = DriverFactory.initDriverWithDownload(downloadDir.toAbsolutePath().toString());
+        // the receipt PDF is captured in memory (PdfCapture), so the shared session needs no download prefs
+        WebDriver driver = DriverFactory.initDriver("chrome");
         try {
             driver.manage().window().maximize();
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(12));
@@ -388,151 +467,173 @@ public class EndToEndCombinedTests extends BaseTest {
             CartPage cartPage = new CartPage(driver);
             CheckoutPage checkoutPage = new CheckoutPage(driver);
 
+            // -Dcheckpoint.resume=true restores the last good checkpoint and skips the blocks before it
+            FlowCheckpoints flow = FlowCheckpoints.begin(driver, "fullCheckoutFlow");
+            // what the cart showed, checked against the receipt; stays empty when resuming past checkout
+            Map<String, Integer> ordered = new HashMap<>();
+            String cartSubtotal = null;
+
             // 1) Login
-            loginPage.openLoginForm();
-            loginPage.selectUsername("demouser");
-            loginPage.selectPassword("testingisfun99");
-            loginPage.clickLogin();
-
-            wait.until(d -> d.findElements(By.xpath("//*[contains(text(),'demouser') or contains(.,'Logout') or contains(.,'logout')]")).size() > 0);
-
-            // 2) Add a product
-            String productName = "iPhone 12 Mini";
-            boolean added = productPage.addProductToCartByName(productName);
-            Assert.assertTrue(added, "Failed to add product: " + productName);
-
-            // 3) Ensure cart open
-            if (driver.findElements(By.cssSelector("div.float-cart")).isEmpty()) {
-                String[] toggles = new String[] { "div.float-cart__header", "div.float-cart__toggle, .cart-toggle, .bag, button.float-cart__open", "header .bag" };
-                for (String t : toggles) {
-                    if (driver.findElements(By.cssSelector(t)).size() > 0) {
-                        driver.findElement(By.cssSelector(t)).click();
-                        break;
+            if (flow.shouldRun("loggedIn")) {
+                loginPage.openLoginForm();
+                loginPage.selectUsername("demouser");
+                loginPage.selectPassword("testingisfun99");
+                loginPage.clickLogin();
+
+                wait.until(d -> d.findElements(By.xpath("//*[contains(text(),'demouser') or contains(.,'Logout') or contains(.,'logout')]")).size() > 0);
+                flow.checkpoint("loggedIn");
+            }
+
+            if (flow.shouldRun("confirmed")) {
+                // 2) Add a product
+                String productName = "iPhone 12 Mini";
+                PagePerformance.Action cartDrawer = PagePerformance.startAction(driver, "cart");
+                boolean added = productPage.addProductToCartByName(productName);
+                Assert.assertTrue(added, "Failed to add product: " + productName);
+
+                // 3) Ensure cart open
+                if (driver.findElements(By.cssSelector("div.float-cart")).isEmpty()) {
+                    String[] toggles = new String[] { "div.float-cart__header", "div.float-cart__toggle, .cart-toggle, .bag, button.float-cart__open", "header .bag" };
+                    for (String t : toggles) {
+                        if (driver.findElements(By.cssSelector(t)).size() > 0) {
+                            driver.findElement(By.cssSelector(t)).click();
+                            break;
+                        }
                     }
                 }
+
+                wait.until(d -> d.findElements(By.cssSelector("div.float-cart .shelf-item")).size() > 0);
+                Assert.assertTrue(cartPage.isCartOpen(), "Cart did not open or no items present after add.");
+                cartDrawer.end();
+                for (String name : cartPage.getCartItemNames()) ordered.put(name, cartPage.getQuantityForItem(name));
+                cartSubtotal = cartPage.getSubtotal();
+                VisualCompare.Result cartLook = ReportUtils.compareScreenshot(driver, "float-cart", By.cssSelector("div.float-cart"));
+                if (cartLook != null) Assert.assertTrue(cartLook.matched, "Cart differs from baseline: " + cartLook);
+
+                // 4) Proceed to checkout
+                PagePerformance.Action toCheckout = PagePerformance.startAction(driver, "checkout");
+                List<WebElement> checkoutButtons = driver.findElements(By.cssSelector("div.buy-btn, button.checkout, a.checkout, .checkout-button"));
+                boolean clicked = false;
+                for (WebElement b : checkoutButtons) {
+                    try {
+                        if (b.isDisplayed() && b.isEnabled()) { b.click(); clicked = true; break; }
+                    } catch (Exception ignored) {}
+                }
+                if (!clicked) driver.get("https://bstackdemo.com/checkout");
+
+                // 5) Fill shipping
+                checkoutPage.waitForForm();
+                toCheckout.end();
+                checkoutPage.fillShippingForm("Harini", "J", "123 Demo St", "CA", "90001");
+
+                // 6) Submit shipping
+                PagePerformance.Action toConfirmation = PagePerformance.startAction(driver, "confirmation");
+                checkoutPage.submitShipping();
+
+                // 7) Wait for confirmation
+                boolean reachedConfirmation = wait.until(d ->
+                    d.getCurrentUrl().contains("/confirmation")
+                    || d.findElements(By.xpath("//*[contains(text(),'Your Order has been successfully placed') or contains(.,'Your order number')]")).size() > 0
+                );
+                Assert.assertTrue(reachedConfirmation, "Did not reach confirmation page. URL=" + driver.getCurrentUrl());
+                toConfirmation.end();
+                // order number changes every run
+                VisualCompare.Result confirmationLook = ReportUtils.compareScreenshot(driver, "confirmation",
+                    By.xpath("//legend[@id='confirmation-message']/.."), By.cssSelector(".order-number, #confirmation-message ~ div strong"));
+                if (confirmationLook != null) Assert.assertTrue(confirmationLook.matched, "Confirmation differs from baseline: " + confirmationLook);
+                flow.checkpoint("confirmed");
             }
 
-            wait.until(d -> d.findElements(By.cssSelector("div.float-cart .shelf-item")).size() > 0);
-            Assert.assertTrue(cartPage.isCartOpen(), "Cart did not open or no items present after add.");
+            if (flow.shouldRun("pdfDownloaded")) {
+                // 8) Download PDF
+                By downloadPdf = By.id("downloadpdf");
+                WebElement dl = wait.until(ExpectedConditions.elementToBeClickable(downloadPdf));
 
-            // 4) Proceed to checkout
-            List<WebElement> checkoutButtons = driver.findElements(By.cssSelector("div.buy-btn, button.checkout, a.checkout, .checkout-button"));
-            boolean clicked = false;
-            for (WebElement b : checkoutButtons) {
-                try {
-                    if (b.isDisplayed() && b.isEnabled()) { b.click(); clicked = true; break; }
-                } catch (Exception ignored) {}
-            }
-            if (!clicked) driver.get("https://bstackdemo.com/checkout");
-
-            // 5) Fill shipping
-            checkoutPage.waitForForm();
-            checkoutPage.fillShippingForm("Harini", "J", "123 Demo St", "CA", "90001");
-
-            // 6) Submit shipping
-            checkoutPage.submitShipping();
-
-            // 7) Wait for confirmation
-            boolean reachedConfirmation = wait.until(d ->
-                d.getCurrentUrl().contains("/confirmation")
-                || d.findElements(By.xpath("//*[contains(text(),'Your Order has been successfully placed') or contains(.,'Your order number')]")).size() > 0
-            );
-            Assert.assertTrue(reachedConfirmation, "Did not reach confirmation page. URL=" + driver.getCurrentUrl());
-
-            // 8) Download PDF
-            By downloadPdf = By.id("downloadpdf");
-            WebElement dl = wait.until(ExpectedConditions.elementToBeClickable(downloadPdf));
-
-            // clean dir
-            if (!Files.exists(downloadDir)) Files.createDirectories(downloadDir);
-            try (Stream<Path> s = Files.list(downloadDir)) {
-                s.forEach(p -> { try { Files.deleteIfExists(p); } catch (Exception ignored) {} });
-            }
+                try (PdfCapture capture = PdfCapture.arm(driver)) {
+                    dl.click();
+                    System.out.println("DEBUG: clicked download link");
+
+                    PdfCapture.Pdf pdf = capture.await(Duration.ofSeconds(15));
+                    Assert.assertNotNull(pdf, "No receipt PDF was downloaded after clicking " + downloadPdf);
+                    ReportUtils.logInfo("Receipt: <a href='" + ReportUtils.link(ArtifactStore.put("receipt", pdf.bytes, "pdf")) + "'>PDF</a>");
 
-            dl.click();
-            System.out.println("DEBUG: clicked download link");
-
-            // wait for pdf
-            Path found = null;
-            long start = System.currentTimeMillis();
-            while (System.currentTimeMillis() - start < 15000) {
-                try (Stream<Path> s = Files.list(downloadDir)) {
-                    Optional<Path> maybe = s.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".pdf")).findFirst();
-                    if (maybe.isPresent()) {
-                        found = maybe.get();
-                        long size1 = Files.size(found);
-                        Thread.sleep(300);
-                        long size2 = Files.size(found);
-                        if (size2 >= size1 && size2 > 0) break;
+                    PdfReceipt receipt = PdfReceipt.parse(pdf.stream());
+                    System.out.println("DEBUG: " + receipt);
+                    for (Map.Entry<String, Integer> item : ordered.entrySet()) {
+                        Assert.assertEquals(receipt.quantityOf(item.getKey()), (int) item.getValue(),
+                            "Receipt quantity of " + item.getKey() + " differs from the cart. Receipt lines: " + receipt.lines);
+                    }
+                    if (cartSubtotal != null && receipt.total != null) {
+                        Assert.assertEquals(receipt.total.compareTo(PdfReceipt.money(cartSubtotal)), 0,
+                            "Receipt total " + receipt.total + " differs from cart subtotal " + cartSubtotal);
                     }
-                } catch (NoSuchFileException nsf) {
-                    // not yet created
                 }
-                Thread.sleep(500);
+                flow.checkpoint("pdfDownloaded");
             }
-            Assert.assertNotNull(found, "Downloaded PDF file not found in: " + downloadDir);
-            System.out.println("DEBUG: Downloaded file: " + found.toAbsolutePath());
-
-            // 9) Click Continue Shopping (robust)
-            WebElement continueBtn = null;
-            By[] continueLocators = new By[] {
-                By.xpath("//button[contains(translate(normalize-space(.),'abcdefghijklmnopqrstuvwxyz','ABCDEFGHIJKLMNOPQRSTUVWXYZ'),'CONTINUE SHOPPING')]"),
-                By.xpath("//button[contains(normalize-space(.),'Continue Shopping')]"),
-                By.cssSelector("button.button--tertiary, button.optimizedCheckout-buttonSecondary, .continueButtonContainer button"),
-                By.cssSelector("a.continue, .continue, .btn-continue")
-            };
-            for (By loc : continueLocators) {
-                try {
-                    if (driver.findElements(loc).size() > 0) { continueBtn = driver.findElement(loc); break; }
-                } catch (Exception ignored) {}
-            }
-            Assert.assertNotNull(continueBtn, "Continue Shopping button not found.");
-            try { wait.until(ExpectedConditions.elementToBeClickable(continueBtn)).click(); }
-            catch (Exception e) { ((JavascriptExecutor) driver).executeScript("arguments[0].click();", continueBtn); }
 
-            // 10) Wait for homepage
-            wait.until(d -> !d.getCurrentUrl().contains("/confirmation") && d.findElements(By.cssSelector("div.shelf-item")).size() > 0);
-            System.out.println("DEBUG: Back to homepage.");
+            if (flow.shouldRun("backOnHome")) {
+                // 9) Click Continue Shopping (robust)
+                WebElement continueBtn = null;
+                By[] continueLocators = new By[] {
+                    By.xpath("//button[contains(translate(normalize-space(.),'abcdefghijklmnopqrstuvwxyz','ABCDEFGHIJKLMNOPQRSTUVWXYZ'),'CONTINUE SHOPPING')]"),
+                    By.xpath("//button[contains(normalize-space(.),'Continue Shopping')]"),
+                    By.cssSelector("button.button--tertiary, button.optimizedCheckout-buttonSecondary, .continueButtonContainer button"),
+                    By.cssSelector("a.continue, .continue, .btn-continue")
+                };
+                for (By loc : continueLocators) {
+                    try {
+                        if (driver.findElements(loc).size() > 0) { continueBtn = driver.findElement(loc); break; }
+                    } catch (Exception ignored) {}
+                }
+                Assert.assertNotNull(continueBtn, "Continue Shopping button not found.");
+                try { wait.until(ExpectedConditions.elementToBeClickable(continueBtn)).click(); }
+                catch (Exception e) { ((JavascriptExecutor) driver).executeScript("arguments[0].click();", continueBtn); }
+
+                // 10) Wait for homepage
+                wait.until(d -> !d.getCurrentUrl().contains("/confirmation") && d.findElements(By.cssSelector("div.shelf-item")).size() > 0);
+                System.out.println("DEBUG: Back to homepage.");
+                flow.checkpoint("backOnHome");
+            }
 
             // === NEW: three navigation checks before logout ===
+            if (flow.shouldRun("navsChecked")) {
+                // A) Orders: click nav item with id="orders" and assert orders page/heading
+                try {
+                    By ordersNav = By.id("orders");
+                    wait.until(ExpectedConditions.elementToBeClickable(ordersNav)).click();
+                    // verify we navigated to /orders or an Orders heading exists
+                    wait.until(d -> d.getCurrentUrl().contains("/orders") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Orders') and (self::h1 or self::h2 or self::strong or self::div)]")).size() > 0 );
+                    System.out.println("DEBUG: Orders page check passed. URL=" + driver.getCurrentUrl());
+                } catch (Exception e) {
+                    Assert.fail("Orders navigation/check failed: " + e.getMessage());
+                }
 
-            // A) Orders: click nav item with id="orders" and assert orders page/heading
-            try {
-                By ordersNav = By.id("orders");
-                wait.until(ExpectedConditions.elementToBeClickable(ordersNav)).click();
-                // verify we navigated to /orders or an Orders heading exists
-                wait.until(d -> d.getCurrentUrl().contains("/orders") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Orders') and (self::h1 or self::h2 or self::strong or self::div)]")).size() > 0 );
-                System.out.println("DEBUG: Orders page check passed. URL=" + driver.getCurrentUrl());
-            } catch (Exception e) {
-                Assert.fail("Orders navigation/check failed: " + e.getMessage());
-            }
+                // B) Favourites: click nav item with id="favourites" and verify
+                try {
+                    By favNav = By.id("favourites");
+                    wait.until(ExpectedConditions.elementToBeClickable(favNav)).click();
+                    // wait for either URL contains /favourites or presence of a favourites area
+                    wait.until(d -> d.getCurrentUrl().contains("/favourites") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Favourites') or contains(normalize-space(.),'Favorites')]")).size() > 0 );
+                    System.out.println("DEBUG: Favourites page check passed. URL=" + driver.getCurrentUrl());
+                } catch (Exception e) {
+                    Assert.fail("Favourites navigation/check failed: " + e.getMessage());
+                }
 
-            // B) Favourites: click nav item with id="favourites" and verify
-            try {
-                By favNav = By.id("favourites");
-                wait.until(ExpectedConditions.elementToBeClickable(favNav)).click();
-                // wait for either URL contains /favourites or presence of a favourites area
-                wait.until(d -> d.getCurrentUrl().contains("/favourites") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Favourites') or contains(normalize-space(.),'Favorites')]")).size() > 0 );
-                System.out.println("DEBUG: Favourites page check passed. URL=" + driver.getCurrentUrl());
-            } catch (Exception e) {
-                Assert.fail("Favourites navigation/check failed: " + e.getMessage());
-            }
+                // C) Offers: click nav item id="offers" and verify
+                try {
+                    By offersNav = By.id("offers");
+                    wait.until(ExpectedConditions.elementToBeClickable(offersNav)).click();
+                    wait.until(d -> d.getCurrentUrl().contains("/offers") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Offers') or contains(normalize-space(.),'Offer')]")).size() > 0 );
+                    System.out.println("DEBUG: Offers page check passed. URL=" + driver.getCurrentUrl());
+                } catch (Exception e) {
+                    Assert.fail("Offers navigation/check failed: " + e.getMessage());
+                }
 
-            // C) Offers: click nav item id="offers" and verify
-            try {
-                By offersNav = By.id("offers");
-                wait.until(ExpectedConditions.elementToBeClickable(offersNav)).click();
-                wait.until(d -> d.getCurrentUrl().contains("/offers") || d.findElements(By.xpath("//*[contains(normalize-space(.),'Offers') or contains(normalize-space(.),'Offer')]")).size() > 0 );
-                System.out.println("DEBUG: Offers page check passed. URL=" + driver.getCurrentUrl());
-            } catch (Exception e) {
-                Assert.fail("Offers navigation/check failed: " + e.getMessage());
+                // wait a short moment so UI settles
+                Thread.sleep(400);
+                flow.checkpoint("navsChecked");
             }
 
-            // wait a short moment so UI settles
-            Thread.sleep(400);
-
-       
-
             // 11) Logout
             WebElement logoutEl = null;
             By[] logoutSelectors = new By[] {
@@ -577,6 +678,8 @@ public class EndToEndCombinedTests extends BaseTest {
             boolean usernameStillPresent = driver.findElements(By.xpath("//*[contains(text(),'demouser') or contains(text(),'DemoUser') or contains(text(),'demo user')]")).size() > 0;
             Assert.assertFalse(usernameStillPresent, "User still appears logged in.");
 
+            flow.complete();
+
             System.out.println("DEBUG: End-to-end flow (with PDF, Continue Shopping, Orders/Favourites/Offers checks, Logout) completed successfully.");
         } finally {
             DriverFactory.quitDriver();
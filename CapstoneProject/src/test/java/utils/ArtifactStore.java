@@ -0,0 +1,223 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for report artifacts (screenshots, page sources).
+ *
+ * Objects live once under target/artifacts/objects/&lt;ab&gt;/&lt;sha256&gt;.&lt;ext&gt; however many tests or
+ * runs produce the same bytes; each run lists what it referenced in runs/&lt;run&gt;.json, written when
+ * the suite finishes (and at exit) and at most once a minute while artifacts keep coming, well
+ * inside the GC grace period that protects a running suite's unlisted objects. A background
+ * GC keeps the last -Dartifacts.keepRuns runs (default 10) and at most -Dartifacts.maxMb (default 500),
+ * then deletes objects no kept run references.
+ */
+public class ArtifactStore {
+    public static final Path ROOT = Paths.get(System.getProperty("artifacts.dir",
+        Paths.get(System.getProperty("user.dir"), "target", "artifacts").toString()));
+    private static final Path OBJECTS = ROOT.resolve("objects");
+    private static final Path RUNS = ROOT.resolve("runs");
+    // objects this young may belong to a parallel run that has not written its manifest yet
+    private static final long GRACE_MILLIS = 10 * 60 * 1000L;
+    private static final long MANIFEST_INTERVAL_MILLIS = 60 * 1000L;
+
+    private static final JSONArray manifest = new JSONArray();
+    private static final AtomicLong storedBytes = new AtomicLong();
+    private static final AtomicLong dedupedBytes = new AtomicLong();
+    private static final ExecutorService gc = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "artifact-gc");
+        t.setDaemon(true);
+        return t;
+    });
+    private static boolean gcScheduled;
+    private static boolean manifestDirty;
+    private static long manifestWritten = System.currentTimeMillis();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ArtifactStore::flush, "artifact-manifest"));
+    }
+
+    /**
+     * Stores the bytes unless an identical object exists, records them in this run's manifest
+     * under the given name and returns the object's path.
+     */
+    public static Path put(String name, byte[] data, String ext) {
+        String hash = sha256(data);
+        Path object = OBJECTS.resolve(hash.substring(0, 2)).resolve(hash + "." + ext);
+        try {
+            if (Files.exists(object)) {
+                dedupedBytes.addAndGet(data.length);
+                // refresh mtime so the GC grace period also covers re-used objects
+                Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(object.getParent());
+                Path tmp = Files.createTempFile(object.getParent(), hash, ".tmp");
+                Files.write(tmp, data);
+                try {
+                    Files.move(tmp, object, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+                    Files.move(tmp, object, StandardCopyOption.REPLACE_EXISTING);
+                }
+                storedBytes.addAndGet(data.length);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store artifact " + name, e);
+        }
+        boolean due;
+        synchronized (manifest) {
+            manifest.put(new JSONObject().put("name", name).put("object", ROOT.relativize(object).toString().replace('\\', '/'))
+                .put("bytes", data.length));
+            manifestDirty = true;
+            due = System.currentTimeMillis() - manifestWritten >= MANIFEST_INTERVAL_MILLIS;
+        }
+        if (due) flush();
+        scheduleGc();
+        return object;
+    }
+
+    public static Path putText(String name, String text, String ext) {
+        return put(name, text.getBytes(StandardCharsets.UTF_8), ext);
+    }
+
+    /** Bytes written / skipped as duplicates by this JVM. */
+    public static String stats() {
+        return "stored " + storedBytes.get() / 1024 + " KB, deduplicated " + dedupedBytes.get() / 1024 + " KB";
+    }
+
+    /** Writes this run's manifest if artifacts were stored since the last write. */
+    public static synchronized void flush() {
+        try {
+            String json;
+            synchronized (manifest) {
+                if (!manifestDirty) return;
+                manifestDirty = false;
+                manifestWritten = System.currentTimeMillis();
+                json = new JSONObject().put("run", DurationStore.RUN_ID).put("artifacts", manifest).toString(1);
+            }
+            Files.createDirectories(RUNS);
+            Path file = RUNS.resolve(DurationStore.RUN_ID + ".json");
+            Path tmp = Files.createTempFile(RUNS, DurationStore.RUN_ID, ".tmp");
+            Files.writeString(tmp, json, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write artifact manifest: " + e.getMessage());
+        }
+    }
+
+    /** Runs retention once per JVM on the background thread. */
+    public static synchronized void scheduleGc() {
+        if (gcScheduled) return;
+        gcScheduled = true;
+        gc.submit(() -> {
+            try {
+                collectGarbage();
+            } catch (Exception e) {
+                System.err.println("DEBUG: Artifact GC failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Drops manifests beyond the retention policy, then every object no remaining manifest references. */
+    static void collectGarbage() throws IOException {
+        if (!Files.isDirectory(RUNS)) return;
+        int keepRuns = Integer.getInteger("artifacts.keepRuns", 10);
+        long maxBytes = Long.getLong("artifacts.maxMb", 500L) * 1024 * 1024;
+        String current = DurationStore.RUN_ID + ".json";
+
+        List<Path> runs;
+        try (Stream<Path> s = Files.list(RUNS)) {
+            // run ids are timestamps, so newest sorts last
+            runs = new ArrayList<>(s.filter(p -> p.toString().endsWith(".json")).sorted().toList());
+        }
+        int deletedRuns = 0;
+        while (runs.size() > Math.max(keepRuns, 1)) {
+            Path oldest = runs.remove(0);
+            if (oldest.getFileName().toString().equals(current)) continue;
+            Files.deleteIfExists(oldest);
+            deletedRuns++;
+        }
+
+        long deletedBytes = 0;
+        while (true) {
+            Set<String> referenced = new HashSet<>();
+            for (Path run : runs) referenced.addAll(objectsOf(run));
+            synchronized (manifest) {
+                for (int i = 0; i < manifest.length(); i++) referenced.add(manifest.getJSONObject(i).getString("object"));
+            }
+            long total = 0;
+            List<Path> objects = listObjects();
+            for (Path o : objects) {
+                String rel = ROOT.relativize(o).toString().replace('\\', '/');
+                if (referenced.contains(rel) || isRecent(o)) {
+                    total += Files.size(o);
+                } else {
+                    deletedBytes += Files.size(o);
+                    Files.deleteIfExists(o);
+                }
+            }
+            // over the byte budget: give up the oldest run and sweep again
+            if (total <= maxBytes || runs.size() <= 1 || runs.get(0).getFileName().toString().equals(current)) break;
+            Files.deleteIfExists(runs.remove(0));
+            deletedRuns++;
+        }
+        if (deletedRuns > 0 || deletedBytes > 0) {
+            System.out.println("DEBUG: Artifact GC removed " + deletedRuns + " run manifest(s) and " + deletedBytes / 1024 + " KB of objects");
+        }
+    }
+
+    private static Set<String> objectsOf(Path run) {
+        Set<String> out = new HashSet<>();
+        try {
+            JSONArray a = new JSONObject(Files.readString(run, StandardCharsets.UTF_8)).getJSONArray("artifacts");
+            for (int i = 0; i < a.length(); i++) out.add(a.getJSONObject(i).getString("object"));
+        } catch (Exception e) {
+            System.err.println("DEBUG: Unreadable artifact manifest " + run.getFileName() + ": " + e.getMessage());
+        }
+        return out;
+    }
+
+    private static List<Path> listObjects() throws IOException {
+        if (!Files.isDirectory(OBJECTS)) return List.of();
+        try (Stream<Path> s = Files.walk(OBJECTS)) {
+            return s.filter(Files::isRegularFile).sorted(Comparator.naturalOrder()).toList();
+        }
+    }
+
+    private static boolean isRecent(Path p) {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(p).toMillis() < GRACE_MILLIS;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
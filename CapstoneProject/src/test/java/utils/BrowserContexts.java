@@ -0,0 +1,304 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Several isolated browser contexts per Chrome process, each handed out as its own WebDriver.
+ *
+ * With -Dcontexts.perBrowser=N (N &gt; 1) DriverFactory.createDriver("chrome") no longer launches
+ * a Chrome per session: up to N sessions share one, each in its own browser context
+ * (Target.createBrowserContext: separate cookies, storage and cache, like an incognito profile)
+ * and its own window. A session is a chromedriver attached to the shared Chrome through its
+ * debugger address and switched to its context's window, so sessions still run their commands
+ * in parallel and page objects see an ordinary driver. Only the Chrome is shared; a
+ * chromedriver costs a few MB against the hundreds of a browser.
+ *
+ * Window handles are the context's own: getWindowHandles() lists its windows only and
+ * switchTo().newWindow() opens the window inside the context. quit() disposes the context; the
+ * shared Chrome quits with its last context. Local Chrome only: on a grid the debugger address
+ * is the node's, so sessions are ordinary grid sessions there. Tests that need a process of their
+ * own (crash, memory or GPU checks) should not run in this mode. -Dsessions.max counts the
+ * shared browsers as well as the sessions.
+ */
+public final class BrowserContexts {
+    private static final List<Host> hosts = new ArrayList<>();
+    private static final HttpClient http = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private BrowserContexts() {}
+
+    public static int perBrowser() {
+        return Integer.getInteger("contexts.perBrowser", 0);
+    }
+
+    public static boolean isEnabled(String browser) {
+        return perBrowser() > 1 && "chrome".equalsIgnoreCase(browser) && DriverFactory.gridUrl() == null;
+    }
+
+    /** A shared Chrome and its browser-level DevTools connection. */
+    private static class Host {
+        final WebDriver driver;
+        final String debuggerAddress;
+        final BrowserSocket socket;
+        int contexts;
+
+        Host(WebDriver driver, String debuggerAddress, BrowserSocket socket) {
+            this.driver = driver;
+            this.debuggerAddress = debuggerAddress;
+            this.socket = socket;
+        }
+    }
+
+    /** Opens a new context on a shared Chrome with room, launching one when all are full. */
+    static WebDriver open() {
+        Host host = reserve();
+        String contextId = null;
+        try {
+            contextId = host.socket.send("Target.createBrowserContext", new JSONObject()).getString("browserContextId");
+            String targetId = createWindow(host, contextId);
+            WebDriver session = DriverFactory.attachChrome(host.debuggerAddress);
+            session.switchTo().window(targetId);
+            session.manage().window().maximize();
+            System.out.println("DEBUG: Browser context " + contextId + " opened on shared Chrome " + host.debuggerAddress
+                + " (" + host.contexts + "/" + perBrowser() + ")");
+            return contextDriver(session, host, contextId);
+        } catch (RuntimeException e) {
+            if (contextId != null) dispose(host, contextId);
+            release(host);
+            throw e;
+        }
+    }
+
+    private static synchronized Host reserve() {
+        for (Host h : hosts) {
+            if (h.contexts < perBrowser()) {
+                h.contexts++;
+                return h;
+            }
+        }
+        WebDriver driver = DriverFactory.launchSharedChrome();
+        try {
+            Object options = ((HasCapabilities) driver).getCapabilities().getCapability("goog:chromeOptions");
+            Object address = options instanceof Map ? ((Map<?, ?>) options).get("debuggerAddress") : null;
+            if (address == null) throw new IllegalStateException("Chrome reported no debuggerAddress");
+            Host h = new Host(driver, String.valueOf(address), BrowserSocket.connect(String.valueOf(address)));
+            h.contexts = 1;
+            hosts.add(h);
+            return h;
+        } catch (RuntimeException e) {
+            try { driver.quit(); } catch (Exception ignored) {}
+            throw e;
+        }
+    }
+
+    private static synchronized void release(Host host) {
+        if (--host.contexts > 0) return;
+        hosts.remove(host);
+        host.socket.close();
+        try { host.driver.quit(); } catch (Exception ignored) {}
+        System.out.println("DEBUG: Shared Chrome " + host.debuggerAddress + " quit with its last context");
+    }
+
+    private static String createWindow(Host host, String contextId) {
+        return host.socket.send("Target.createTarget", new JSONObject()
+            .put("url", "about:blank")
+            .put("browserContextId", contextId)
+            .put("newWindow", true)).getString("targetId");
+    }
+
+    private static void dispose(Host host, String contextId) {
+        try {
+            host.socket.send("Target.disposeBrowserContext", new JSONObject().put("browserContextId", contextId));
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not dispose browser context " + contextId + ": " + e.getMessage());
+        }
+    }
+
+    // page targets of one context; chromedriver's window handles are target ids
+    private static Set<String> windowsOf(Host host, String contextId) {
+        Set<String> ids = new LinkedHashSet<>();
+        JSONArray targets = host.socket.send("Target.getTargets", new JSONObject()).getJSONArray("targetInfos");
+        for (int i = 0; i < targets.length(); i++) {
+            JSONObject t = targets.getJSONObject(i);
+            if ("page".equals(t.optString("type")) && contextId.equals(t.optString("browserContextId"))) {
+                ids.add(t.getString("targetId"));
+            }
+        }
+        return ids;
+    }
+
+    private static String targetIdOf(String handle) {
+        return handle.startsWith("CDwindow-") ? handle.substring("CDwindow-".length()) : handle;
+    }
+
+    // the attached driver with the context's window handling; every other call goes straight through
+    private static WebDriver contextDriver(WebDriver session, Host host, String contextId) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> c = session.getClass(); c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                if (Modifier.isPublic(i.getModifiers())) interfaces.add(i);
+            }
+        }
+        boolean[] quit = {false};
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getWindowHandles":
+                    if (method.getParameterCount() != 0) break;
+                    Set<String> own = windowsOf(host, contextId);
+                    Set<String> handles = new LinkedHashSet<>();
+                    for (String h : session.getWindowHandles()) {
+                        if (own.contains(targetIdOf(h))) handles.add(h);
+                    }
+                    return handles;
+                case "switchTo":
+                    if (method.getParameterCount() != 0) break;
+                    WebDriver.TargetLocator locator = session.switchTo();
+                    return Proxy.newProxyInstance(BrowserContexts.class.getClassLoader(), new Class<?>[] {WebDriver.TargetLocator.class},
+                        (p, m, a) -> {
+                            if (m.getName().equals("newWindow")) {
+                                String targetId = host.socket.send("Target.createTarget", new JSONObject()
+                                    .put("url", "about:blank")
+                                    .put("browserContextId", contextId)
+                                    .put("newWindow", a[0] == WindowType.WINDOW)).getString("targetId");
+                                return locator.window(targetId);
+                            }
+                            return invoke(locator, m, a);
+                        });
+                case "quit":
+                    synchronized (quit) {
+                        if (quit[0]) return null;
+                        quit[0] = true;
+                    }
+                    try {
+                        session.quit();
+                    } finally {
+                        dispose(host, contextId);
+                        release(host);
+                    }
+                    return null;
+                case "toString":
+                    return "ContextDriver(" + contextId + " on " + host.debuggerAddress + ")";
+                default:
+                    break;
+            }
+            return invoke(session, method, args);
+        };
+        return (WebDriver) Proxy.newProxyInstance(BrowserContexts.class.getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Minimal client for the browser-level DevTools endpoint (the Target domain lives there). */
+    private static class BrowserSocket implements WebSocket.Listener {
+        private final AtomicInteger ids = new AtomicInteger();
+        private final Map<Integer, CompletableFuture<JSONObject>> pending = new ConcurrentHashMap<>();
+        private final StringBuilder partial = new StringBuilder();
+        private WebSocket ws;
+
+        static BrowserSocket connect(String debuggerAddress) {
+            try {
+                HttpRequest req = HttpRequest.newBuilder(URI.create("http://" + debuggerAddress + "/json/version"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+                String url = new JSONObject(http.send(req, HttpResponse.BodyHandlers.ofString()).body()).getString("webSocketDebuggerUrl");
+                BrowserSocket socket = new BrowserSocket();
+                socket.ws = http.newWebSocketBuilder().buildAsync(URI.create(url), socket).get(10, TimeUnit.SECONDS);
+                return socket;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted connecting to " + debuggerAddress, e);
+            } catch (Exception e) {
+                throw new WebDriverException("Could not connect to the browser endpoint of " + debuggerAddress + ": " + e.getMessage(), e);
+            }
+        }
+
+        JSONObject send(String method, JSONObject params) {
+            int id = ids.incrementAndGet();
+            CompletableFuture<JSONObject> reply = new CompletableFuture<>();
+            pending.put(id, reply);
+            try {
+                synchronized (this) {
+                    ws.sendText(new JSONObject().put("id", id).put("method", method).put("params", params).toString(), true).join();
+                }
+                JSONObject message = reply.get(30, TimeUnit.SECONDS);
+                if (message.has("error")) {
+                    throw new WebDriverException(method + " failed: " + message.getJSONObject("error").optString("message"));
+                }
+                return message.optJSONObject("result", new JSONObject());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException(method + " interrupted", e);
+            } catch (WebDriverException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new WebDriverException(method + " failed: " + e.getMessage(), e);
+            } finally {
+                pending.remove(id);
+            }
+        }
+
+        void close() {
+            try { ws.sendClose(WebSocket.NORMAL_CLOSURE, "").get(2, TimeUnit.SECONDS); } catch (Exception ignored) {}
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                JSONObject message = new JSONObject(partial.toString());
+                partial.setLength(0);
+                // events (no id) are not subscribed to and are dropped
+                CompletableFuture<JSONObject> reply = message.has("id") ? pending.get(message.getInt("id")) : null;
+                if (reply != null) reply.complete(message);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            pending.values().forEach(f -> f.completeExceptionally(new WebDriverException("Browser endpoint closed: " + reason)));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            pending.values().forEach(f -> f.completeExceptionally(error));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.bidi.log.GenericLogEntry;
+import org.openqa.selenium.bidi.module.LogInspector;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Streams console messages, JS exceptions and failed requests of every session into a bounded
+ * buffer of that session (-Dbrowser.logs.max entries, default 500; oldest dropped first).
+ *
+ * Events arrive on the DevTools (Chrome) or BiDi (Firefox) connection thread and are buffered
+ * raw; they are only formatted when a test fails and its log is attached to the report, so
+ * passing tests pay nothing beyond the subscription. A test's log is what the sessions it used
+ * (see TestSessions) logged since it started, so parallel tests never see each other's entries.
+ * Network.loadingFailed only names the request by id, so the method and URL of each request in
+ * flight are kept per session (at most -Dbrowser.logs.requests, default 1000, oldest dropped) and
+ * written into the failure's entry. Disable with -Dbrowser.logs=false.
+ */
+public class BrowserLogs {
+    private static final Map<WebDriver, Buffer> buffers = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Log of one session. */
+    private static class Buffer {
+        final Deque<Entry> entries = new ArrayDeque<>();
+        // requestId -> "METHOD url" of requests in flight, for naming failed ones
+        final Map<Object, String> requests = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+                return size() > Integer.getInteger("browser.logs.requests", 1000);
+            }
+        };
+        long lastDrop;
+
+        synchronized void add(String kind, Object raw) {
+            int max = Integer.getInteger("browser.logs.max", 500);
+            entries.addLast(new Entry(kind, raw));
+            while (entries.size() > max) {
+                lastDrop = entries.removeFirst().at;
+            }
+        }
+
+        synchronized void requestSent(Map<String, Object> e) {
+            Map<?, ?> request = map(e.get("request"));
+            requests.put(e.get("requestId"), request.get("method") + " " + request.get("url"));
+        }
+
+        synchronized void requestDone(Map<String, Object> e) {
+            requests.remove(e.get("requestId"));
+        }
+
+        // the failure with the request it belongs to under "request"
+        synchronized void requestFailed(Map<String, Object> e) {
+            Map<String, Object> failed = new LinkedHashMap<>(e);
+            failed.put("request", requests.remove(e.get("requestId")));
+            add("network", failed);
+        }
+
+        synchronized List<Entry> since(long start) {
+            List<Entry> out = new ArrayList<>();
+            for (Entry e : entries) {
+                if (e.at >= start) out.add(e);
+            }
+            return out;
+        }
+    }
+
+    /** One raw event; {@link #toString()} does the formatting. */
+    private static class Entry {
+        final long at = System.currentTimeMillis();
+        final String kind;
+        final Object raw;
+
+        Entry(String kind, Object raw) {
+            this.kind = kind;
+            this.raw = raw;
+        }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(at) + " " + kind + " " + describe(kind, raw);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("browser.logs", "true"));
+    }
+
+    /** Subscribes to the session's log events over CDP, or BiDi where there is no CDP. */
+    public static void attach(WebDriver session) {
+        if (!isEnabled()) return;
+        Buffer buffer = new Buffer();
+        try {
+            if (session instanceof HasDevTools) {
+                DevTools devTools = ((HasDevTools) session).getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+                devTools.addListener(event("Runtime.consoleAPICalled"), e -> buffer.add("console", e));
+                devTools.addListener(event("Runtime.exceptionThrown"), e -> buffer.add("exception", e));
+                devTools.addListener(event("Log.entryAdded"), e -> buffer.add("log", e));
+                devTools.addListener(event("Network.requestWillBeSent"), buffer::requestSent);
+                devTools.addListener(event("Network.loadingFinished"), buffer::requestDone);
+                devTools.addListener(event("Network.loadingFailed"), buffer::requestFailed);
+                devTools.addListener(event("Network.responseReceived"), e -> {
+                    Object response = e.get("response");
+                    if (response instanceof Map && num(((Map<?, ?>) response).get("status")) >= 400) buffer.add("http", e);
+                });
+                devTools.send(new Command<>("Runtime.enable", Map.of()));
+                devTools.send(new Command<>("Log.enable", Map.of()));
+                devTools.send(new Command<>("Network.enable", Map.of()));
+            } else if (session instanceof HasBiDi && ((HasBiDi) session).maybeGetBiDi().isPresent()) {
+                LogInspector inspector = new LogInspector(session);
+                inspector.onConsoleEntry(e -> buffer.add("console", e));
+                inspector.onJavaScriptException(e -> buffer.add("exception", e));
+            } else {
+                return;
+            }
+            buffers.put(session, buffer);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Browser log streaming not available for this session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Formatted entries of the calling thread's running test, oldest first per session; with more
+     * than one session each line names its session (1 = the first the test used).
+     */
+    public static List<String> entries() {
+        long start = TestSessions.start();
+        List<Buffer> used = new ArrayList<>();
+        for (WebDriver session : TestSessions.used()) {
+            Buffer b = buffers.get(session);
+            if (b != null) used.add(b);
+        }
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < used.size(); i++) {
+            Buffer b = used.get(i);
+            String prefix = used.size() > 1 ? "[session " + (i + 1) + "] " : "";
+            List<Entry> lines = b.since(start);
+            synchronized (b) {
+                if (b.lastDrop >= start) out.add(prefix + "... earlier entries dropped (browser.logs.max)");
+            }
+            for (Entry e : lines) out.add(prefix + e);
+        }
+        return out;
+    }
+
+    /**
+     * Stores the running test's log in the ArtifactStore and links it (with the last lines inline)
+     * from the current report test. Call on failure only.
+     */
+    public static Path attachToReport(String testName) {
+        List<String> lines = entries();
+        if (lines.isEmpty()) return null;
+        Path stored = ArtifactStore.putText(testName + "_browser-log", String.join("\n", lines), "log");
+        List<String> tail = lines.subList(Math.max(0, lines.size() - 20), lines.size());
+        ReportUtils.logInfo("Browser log (" + lines.size() + " entries, <a href='" + ReportUtils.link(stored) + "'>full log</a>):<pre>"
+            + escape(String.join("\n", tail)) + "</pre>");
+        return stored;
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    private static String describe(String kind, Object raw) {
+        if (raw instanceof GenericLogEntry) {
+            GenericLogEntry e = (GenericLogEntry) raw;
+            return e.getLevel() + " " + e.getText();
+        }
+        if (!(raw instanceof Map)) return String.valueOf(raw);
+        Map<?, ?> e = (Map<?, ?>) raw;
+        switch (kind) {
+            case "console": {
+                StringBuilder sb = new StringBuilder(String.valueOf(e.get("type")));
+                Object args = e.get("args");
+                if (args instanceof List) {
+                    for (Object a : (List<?>) args) {
+                        Map<?, ?> arg = a instanceof Map ? (Map<?, ?>) a : Map.of();
+                        sb.append(' ').append(arg.containsKey("value") ? arg.get("value") : arg.get("description"));
+                    }
+                }
+                return sb.toString();
+            }
+            case "exception": {
+                Map<?, ?> d = map(e.get("exceptionDetails"));
+                Map<?, ?> ex = map(d.get("exception"));
+                return ex.containsKey("description") ? String.valueOf(ex.get("description")) : String.valueOf(d.get("text"));
+            }
+            case "log": {
+                Map<?, ?> entry = map(e.get("entry"));
+                return entry.get("level") + " " + entry.get("text") + (entry.get("url") != null ? " (" + entry.get("url") + ")" : "");
+            }
+            case "network": {
+                Object request = e.get("request");
+                String name = request == null ? "request " + e.get("requestId") : String.valueOf(request);
+                // data: URLs carry the whole payload
+                if (name.length() > 300) name = name.substring(0, 300) + "...";
+                return name + " " + e.get("type") + " " + e.get("errorText") + (Boolean.TRUE.equals(e.get("canceled")) ? " (canceled)" : "");
+            }
+            case "http": {
+                Map<?, ?> r = map(e.get("response"));
+                return r.get("status") + " " + r.get("url");
+            }
+            default:
+                return e.toString();
+        }
+    }
+
+    private static Map<?, ?> map(Object o) {
+        return o instanceof Map ? (Map<?, ?>) o : Map.of();
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : -1;
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
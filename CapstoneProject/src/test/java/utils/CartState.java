@@ -0,0 +1,126 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seeds the cart straight into the app's client-side state, for tests whose subject is what
+ * comes after the cart (quantities, removal, checkout) rather than the "Add to cart" clicks.
+ *
+ * The app keeps the cart in localStorage "cartProducts": the product entries of /api/products
+ * plus a quantity, rendered on page load. The catalogue is read once per site. On Chrome the
+ * cart is written by a new-document script, so the page opens with it in a single navigation;
+ * other drivers write it from a page of the site and load the URL again (opening the site first
+ * if the session is elsewhere, e.g. on about:blank after a reset).
+ */
+public final class CartState {
+    public static final String CART_KEY = "cartProducts";
+
+    private static final HttpClient http = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private static final Map<String, JSONArray> catalogues = new ConcurrentHashMap<>();
+
+    private CartState() {}
+
+    /**
+     * Opens url with exactly these products in the cart; naming a product twice gives it
+     * quantity 2. The signed-in user (sessionStorage) is kept.
+     *
+     * @throws IllegalArgumentException for a name that is not in the site's catalogue
+     */
+    public static void cartWithItems(WebDriver driver, String url, String... names) {
+        long start = System.nanoTime();
+        String origin = DriverFactory.originOf(url);
+        if (origin == null) throw new IllegalArgumentException("Not an http(s) URL: " + url);
+        String cart = items(origin, names).toString();
+
+        if (!(driver instanceof HasCdp) || !seedOnLoad((HasCdp) driver, driver, origin, cart, url)) {
+            if (!origin.equals(DriverFactory.originOf(driver.getCurrentUrl()))) driver.get(url);
+            ((JavascriptExecutor) driver).executeScript("window.localStorage.setItem(arguments[0], arguments[1]);", CART_KEY, cart);
+            driver.get(url);
+        }
+        System.out.println("DEBUG: Cart seeded with " + Arrays.toString(names) + " in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // the script runs before the app's own, so the first render already shows the cart
+    private static boolean seedOnLoad(HasCdp cdp, WebDriver driver, String origin, String cart, String url) {
+        String source = "if (location.origin === " + JSONObject.quote(origin) + ") {"
+            + " try { window.localStorage.setItem(" + JSONObject.quote(CART_KEY) + ", " + JSONObject.quote(cart) + "); } catch (e) {} }";
+        Object id;
+        try {
+            id = cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", source)).get("identifier");
+        } catch (Exception e) {
+            System.err.println("DEBUG: No new-document script for cart seeding, writing from the page: " + e.getMessage());
+            return false;
+        }
+        try {
+            driver.get(url);
+        } finally {
+            if (id != null) cdp.executeCdpCommand("Page.removeScriptToEvaluateOnNewDocument", Map.of("identifier", id));
+        }
+        return true;
+    }
+
+    // cart entries in the app's shape, in the order first named
+    private static JSONArray items(String origin, String... names) {
+        JSONArray catalogue = catalogue(origin);
+        Map<Object, JSONObject> cart = new LinkedHashMap<>();
+        for (String name : names) {
+            JSONObject product = null;
+            for (int i = 0; i < catalogue.length() && product == null; i++) {
+                JSONObject p = catalogue.getJSONObject(i);
+                if (name.trim().equalsIgnoreCase(p.optString("title").trim())) product = p;
+            }
+            if (product == null) {
+                List<String> titles = new ArrayList<>();
+                for (int i = 0; i < catalogue.length(); i++) titles.add(catalogue.getJSONObject(i).optString("title"));
+                throw new IllegalArgumentException("No product \"" + name + "\" on " + origin + "; catalogue: " + titles);
+            }
+            JSONObject entry = cart.get(product.get("id"));
+            if (entry == null) {
+                entry = new JSONObject(product.toMap());
+                entry.put("quantity", 0);
+                if (!entry.has("currencyFormat")) entry.put("currencyFormat", "$");
+                cart.put(product.get("id"), entry);
+            }
+            entry.put("quantity", entry.getInt("quantity") + 1);
+        }
+        return new JSONArray(cart.values());
+    }
+
+    private static JSONArray catalogue(String origin) {
+        return catalogues.computeIfAbsent(origin, o -> {
+            try {
+                HttpRequest req = HttpRequest.newBuilder(URI.create(o + "/api/products"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+                HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+                if (res.statusCode() != 200) throw new IllegalStateException("HTTP " + res.statusCode());
+                return new JSONObject(res.body()).getJSONArray("products");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted reading the catalogue of " + o, e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not read the catalogue from " + o + "/api/products: " + e.getMessage(), e);
+            }
+        });
+    }
+}
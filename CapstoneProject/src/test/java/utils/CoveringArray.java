@@ -0,0 +1,315 @@
+package utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.testng.annotations.DataProvider;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * t-wise covering arrays (pairwise by default) for data-driven tests.
+ *
+ * Every combination of values of any t parameters appears in at least one row, which finds the
+ * interaction bugs a full cartesian product would, in a small fraction of the rows. Rows are built
+ * with IPOG: start from all combinations of the t largest domains, then add one parameter at a
+ * time, first choosing its value in existing rows to cover the most new tuples, then appending
+ * rows for whatever is left.
+ *
+ * Used through the "covering" DataProvider (domains from {@link Domains}/{@link Domain}) and, for
+ * Cucumber, by {@link #main} which regenerates Examples tables marked with
+ * "# covering: &lt;excel&gt;#&lt;sheet&gt; [strength=N]".
+ */
+public class CoveringArray {
+    private static final Pattern MARKER = Pattern.compile("#\\s*covering:\\s*(\\S+?)#(\\S+)(?:\\s+strength=(\\d+))?\\s*");
+
+    /** Rows of value indexes, one column per domain size, covering every t-tuple. */
+    public static int[][] generate(int[] sizes, int t) {
+        int n = sizes.length;
+        if (n == 0) return new int[0][];
+        t = Math.max(1, Math.min(t, n));
+
+        // largest domains first: the seed product is then the unavoidable minimum
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> sizes[b] - sizes[a]);
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) size[i] = sizes[order[i]];
+
+        List<int[]> rows = new ArrayList<>();
+        int[] seed = new int[t];
+        do {
+            int[] row = new int[n];
+            Arrays.fill(row, -1);
+            System.arraycopy(seed, 0, row, 0, t);
+            rows.add(row);
+        } while (next(seed, size, t));
+
+        for (int p = t; p < n; p++) {
+            List<int[]> combos = combinations(p, t - 1);
+            boolean[][] covered = new boolean[combos.size()][];
+            for (int c = 0; c < combos.size(); c++) covered[c] = new boolean[tupleCount(combos.get(c), size) * size[p]];
+
+            // horizontal growth: pick the value of p that covers the most uncovered tuples per row
+            for (int r = 0; r < rows.size(); r++) {
+                int[] row = rows.get(r);
+                int best = -1, bestGain = -1;
+                for (int k = 0; k < size[p]; k++) {
+                    int v = (k + r) % size[p]; // rotate ties so values spread evenly
+                    int gain = 0;
+                    for (int c = 0; c < combos.size(); c++) {
+                        int idx = tupleIndex(combos.get(c), row, size, v, size[p]);
+                        if (idx >= 0 && !covered[c][idx]) gain++;
+                    }
+                    if (gain > bestGain) {
+                        best = v;
+                        bestGain = gain;
+                    }
+                }
+                row[p] = best;
+                for (int c = 0; c < combos.size(); c++) {
+                    int idx = tupleIndex(combos.get(c), row, size, best, size[p]);
+                    if (idx >= 0) covered[c][idx] = true;
+                }
+            }
+
+            // vertical growth: fit each remaining tuple into a row with free slots, or add a row
+            for (int c = 0; c < combos.size(); c++) {
+                int[] combo = combos.get(c);
+                for (int idx = 0; idx < covered[c].length; idx++) {
+                    if (covered[c][idx]) continue;
+                    int v = idx % size[p];
+                    int[] values = decode(combo, size, idx / size[p]);
+                    int[] target = null;
+                    for (int[] row : rows) {
+                        if (compatible(row, combo, values, p, v)) {
+                            target = row;
+                            break;
+                        }
+                    }
+                    if (target == null) {
+                        target = new int[n];
+                        Arrays.fill(target, -1);
+                        rows.add(target);
+                    }
+                    for (int j = 0; j < combo.length; j++) target[combo[j]] = values[j];
+                    target[p] = v;
+                    // the filled row may cover other tuples of p as well
+                    for (int c2 = c; c2 < combos.size(); c2++) {
+                        int i2 = tupleIndex(combos.get(c2), target, size, v, size[p]);
+                        if (i2 >= 0) covered[c2][i2] = true;
+                    }
+                }
+            }
+        }
+
+        int[][] out = new int[rows.size()][n];
+        for (int r = 0; r < rows.size(); r++) {
+            for (int i = 0; i < n; i++) {
+                int v = rows.get(r)[i];
+                out[r][order[i]] = v >= 0 ? v : r % size[i]; // free slots: any value works
+            }
+        }
+        return out;
+    }
+
+    /** Covering array over named domains; each row holds one value per domain, in domain order. */
+    public static List<String[]> generate(Map<String, List<String>> domains, int t) {
+        List<List<String>> values = new ArrayList<>(domains.values());
+        int[] sizes = new int[values.size()];
+        for (int i = 0; i < sizes.length; i++) sizes[i] = values.get(i).size();
+        List<String[]> out = new ArrayList<>();
+        for (int[] row : generate(sizes, t)) {
+            String[] r = new String[row.length];
+            for (int i = 0; i < row.length; i++) r[i] = values.get(i).get(row[i]);
+            out.add(r);
+        }
+        return out;
+    }
+
+    /**
+     * DataProvider for methods annotated with {@link Domain}/{@link Domains}; one argument per
+     * domain in declaration order (Excel columns first, then annotated domains).
+     */
+    @DataProvider(name = "covering")
+    public static Object[][] covering(Method method) {
+        Domains config = method.getAnnotation(Domains.class);
+        Map<String, List<String>> domains = new LinkedHashMap<>();
+        if (config != null && !config.excel().isEmpty()) domains.putAll(fromExcel(config.excel(), config.sheet()));
+        for (Domain d : method.getAnnotationsByType(Domain.class)) domains.put(d.name(), Arrays.asList(d.values()));
+        if (domains.size() != method.getParameterCount()) {
+            throw new IllegalStateException(method.getName() + " has " + method.getParameterCount()
+                + " parameters but " + domains.size() + " domains " + domains.keySet());
+        }
+        int t = Integer.getInteger("combinatorial.strength", config != null ? config.strength() : 2);
+        List<String[]> rows = generate(domains, t);
+        System.out.println("DEBUG: Covering array for " + method.getName() + ": " + rows.size() + " rows instead of "
+            + cartesianSize(domains) + " (t=" + t + ", " + domains.keySet() + ")");
+        return rows.toArray(new Object[0][]);
+    }
+
+    /** Domains from a sheet: header row = parameter names, each column lists that parameter's values. */
+    public static Map<String, List<String>> fromExcel(String resource, String sheetName) {
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        try (InputStream in = CoveringArray.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalArgumentException("Domain workbook not found: " + resource);
+            Workbook wb = WorkbookFactory.create(in);
+            Sheet sheet = sheetName.isEmpty() ? wb.getSheetAt(0) : wb.getSheet(sheetName);
+            if (sheet == null) throw new IllegalArgumentException("Sheet '" + sheetName + "' not found in " + resource);
+            DataFormatter fmt = new DataFormatter();
+            Row header = sheet.getRow(0);
+            for (int c = 0; c < header.getLastCellNum(); c++) {
+                String name = fmt.formatCellValue(header.getCell(c)).trim();
+                if (name.isEmpty()) continue;
+                List<String> values = new ArrayList<>();
+                for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                    Row row = sheet.getRow(r);
+                    Cell cell = row == null ? null : row.getCell(c);
+                    String v = cell == null ? "" : fmt.formatCellValue(cell).trim();
+                    if (!v.isEmpty()) values.add(v);
+                }
+                out.put(name, values);
+            }
+            return out;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load domains: " + resource + "#" + sheetName, e);
+        }
+    }
+
+    /** Gherkin Examples table (header + rows), each line prefixed with indent. */
+    public static List<String> examplesTable(List<String> names, List<String[]> rows, String indent) {
+        int[] width = new int[names.size()];
+        for (int i = 0; i < width.length; i++) width[i] = names.get(i).length();
+        for (String[] r : rows) for (int i = 0; i < r.length; i++) width[i] = Math.max(width[i], r[i].length());
+        List<String> lines = new ArrayList<>();
+        lines.add(tableLine(names.toArray(new String[0]), width, indent));
+        for (String[] r : rows) lines.add(tableLine(r, width, indent));
+        return lines;
+    }
+
+    /**
+     * Regenerates the Examples table after every "# covering: &lt;excel&gt;#&lt;sheet&gt; [strength=N]"
+     * comment in the feature files (default src/test/resources/features); run after changing a
+     * domain sheet, with test resources on the classpath.
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "src/test/resources/features");
+        try (DirectoryStream<Path> features = Files.newDirectoryStream(dir, "*.feature")) {
+            for (Path feature : features) {
+                List<String> lines = Files.readAllLines(feature, StandardCharsets.UTF_8);
+                List<String> out = new ArrayList<>();
+                boolean changed = false;
+                for (int i = 0; i < lines.size(); i++) {
+                    out.add(lines.get(i));
+                    Matcher m = MARKER.matcher(lines.get(i).trim());
+                    if (!m.matches()) continue;
+                    // keep the Examples: line, then replace the table under it
+                    int j = i + 1;
+                    while (j < lines.size() && !lines.get(j).trim().startsWith("|")) out.add(lines.get(j++));
+                    String indent = j < lines.size() ? lines.get(j).substring(0, lines.get(j).indexOf('|')) : "      ";
+                    while (j < lines.size() && lines.get(j).trim().startsWith("|")) j++;
+                    Map<String, List<String>> domains = fromExcel(m.group(1), m.group(2));
+                    int t = m.group(3) != null ? Integer.parseInt(m.group(3)) : 2;
+                    List<String[]> rows = generate(domains, t);
+                    out.addAll(examplesTable(new ArrayList<>(domains.keySet()), rows, indent));
+                    System.out.println(feature.getFileName() + ": " + m.group(2) + " -> " + rows.size() + " examples of "
+                        + cartesianSize(domains) + " (t=" + t + ")");
+                    changed = true;
+                    i = j - 1;
+                }
+                if (changed) Files.write(feature, out, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static String tableLine(String[] cells, int[] width, String indent) {
+        StringBuilder sb = new StringBuilder(indent).append('|');
+        for (int i = 0; i < cells.length; i++) {
+            sb.append(' ').append(cells[i]);
+            for (int k = cells[i].length(); k < width[i]; k++) sb.append(' ');
+            sb.append(" |");
+        }
+        return sb.toString();
+    }
+
+    private static long cartesianSize(Map<String, List<String>> domains) {
+        long n = 1;
+        for (List<String> v : domains.values()) n *= v.size();
+        return n;
+    }
+
+    // odometer increment over the first t positions; false after the last combination
+    private static boolean next(int[] digits, int[] size, int t) {
+        for (int i = t - 1; i >= 0; i--) {
+            if (++digits[i] < size[i]) return true;
+            digits[i] = 0;
+        }
+        return false;
+    }
+
+    // all k-subsets of {0..m-1}, ascending
+    private static List<int[]> combinations(int m, int k) {
+        List<int[]> out = new ArrayList<>();
+        int[] c = new int[k];
+        for (int i = 0; i < k; i++) c[i] = i;
+        while (true) {
+            out.add(c.clone());
+            int i = k - 1;
+            while (i >= 0 && c[i] == m - k + i) i--;
+            if (i < 0) return out;
+            c[i]++;
+            for (int j = i + 1; j < k; j++) c[j] = c[j - 1] + 1;
+        }
+    }
+
+    private static int tupleCount(int[] combo, int[] size) {
+        int n = 1;
+        for (int p : combo) n *= size[p];
+        return n;
+    }
+
+    // index of (row values at combo, v) in the combo's coverage table; -1 if a slot is still free
+    private static int tupleIndex(int[] combo, int[] row, int[] size, int v, int sizeP) {
+        int idx = 0;
+        for (int p : combo) {
+            if (row[p] < 0) return -1;
+            idx = idx * size[p] + row[p];
+        }
+        return idx * sizeP + v;
+    }
+
+    private static int[] decode(int[] combo, int[] size, int idx) {
+        int[] values = new int[combo.length];
+        for (int j = combo.length - 1; j >= 0; j--) {
+            values[j] = idx % size[combo[j]];
+            idx /= size[combo[j]];
+        }
+        return values;
+    }
+
+    private static boolean compatible(int[] row, int[] combo, int[] values, int p, int v) {
+        if (row[p] >= 0 && row[p] != v) return false;
+        for (int j = 0; j < combo.length; j++) {
+            if (row[combo[j]] >= 0 && row[combo[j]] != values[j]) return false;
+        }
+        return true;
+    }
+}
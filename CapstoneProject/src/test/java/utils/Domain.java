@@ -0,0 +1,20 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Values of one test parameter for the "covering" DataProvider ({@link CoveringArray}).
+ * Declare one per method parameter, in parameter order.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Repeatable(Domains.class)
+public @interface Domain {
+    String name();
+
+    String[] values();
+}
@@ -0,0 +1,23 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Parameter domains of a combinatorial test: the repeated {@link Domain}s and/or an Excel sheet
+ * whose header row names the parameters and whose columns list their values.
+ * strength is t of the t-wise covering array (2 = pairwise); -Dcombinatorial.strength overrides it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Domains {
+    Domain[] value() default {};
+
+    int strength() default 2;
+
+    String excel() default "";
+
+    String sheet() default "";
+}
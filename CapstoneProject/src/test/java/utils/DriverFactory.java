@@ -1,18 +1,31 @@
 package utils;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SessionNotCreatedException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
 import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.logging.LogType;
-import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.htmlunit.BrowserVersion;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,53 +40,205 @@ public class DriverFactory {
     private static final int IMPLICIT_WAIT_SECONDS = 5;
     private static final int PAGE_LOAD_TIMEOUT_SECONDS = 60;
 
+    public static final String FAST_PATH_BROWSER = "htmlunit";
+    // accessors that return a facade rather than talk to the browser
+    private static final Set<String> FACADE_METHODS = Set.of("manage", "navigate", "switchTo", "timeouts", "window",
+        "logs", "getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals");
+
     
     public static WebDriver initDriver(String browser) {
         if (driver == null) {
-            // Reduce Selenium noisy logs
-            Logger.getLogger("org.openqa.selenium").setLevel(Level.OFF);
-            Logger.getLogger("org.openqa.selenium.remote").setLevel(Level.OFF);
-
-            if (browser == null || browser.isEmpty()) browser = "chrome";
-
-            if (browser.equalsIgnoreCase("chrome")) {
-                driver = createChromeDriver(null);
-            } else if (browser.equalsIgnoreCase("firefox")) {
-                WebDriverManager.firefoxdriver().setup();
-                driver = new FirefoxDriver();
-                driver.manage().window().maximize();
-                driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
-                driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
-            } else {
-                throw new IllegalArgumentException("Browser not supported: " + browser);
-            }
+            driver = createDriver(browser);
         }
         return driver;
     }
 
-    
-    public static WebDriver initDriverWithDownload(String downloadDirAbsolutePath) {
+    /**
+     * Creates a new, unshared driver session.
+     * "htmlunit" is the in-process fast-path mode: no browser process, JavaScript enabled,
+     * meant for page-object checks that only read DOM/text (see {@link FastPath}).
+     */
+    public static WebDriver createDriver(String browser) {
+        SessionRegistry.checkBudget();
+        Set<Long> before = SessionRegistry.childProcesses();
+        long start = System.nanoTime();
+        WebDriver session = BrowserContexts.isEnabled(browser) ? instrument(BrowserContexts.open()) : newSession(browser);
+        long acquireNanos = System.nanoTime() - start;
+
+        // one decorator for the bookkeeping listeners: registry always, metrics/JFR when on
+        SessionRegistry.Entry entry = SessionRegistry.register(browser, before);
+        List<WebDriverListener> listeners = new ArrayList<>(List.of(entry));
+        WebDriverListener metrics = MetricsServer.listener(acquireNanos);
+        if (metrics != null) listeners.add(metrics);
+        WebDriverListener flight = FlightEvents.listener();
+        if (flight != null) listeners.add(flight);
+        return SessionRegistry.bind(entry, new EventFiringDecorator<>(listeners.toArray(new WebDriverListener[0])).decorate(session));
+    }
+
+    /** False for WebDriver/WebElement methods that never reach the browser (manage(), navigate(), ...). */
+    static boolean isBrowserCommand(Method method) {
+        return !FACADE_METHODS.contains(method.getName());
+    }
+
+    private static WebDriver newSession(String browser) {
+        // Reduce Selenium noisy logs
+        Logger.getLogger("org.openqa.selenium").setLevel(Level.OFF);
+        Logger.getLogger("org.openqa.selenium.remote").setLevel(Level.OFF);
+
+        if (browser == null || browser.isEmpty()) browser = "chrome";
+
+        String grid = gridUrl();
+        if (grid != null && !browser.equalsIgnoreCase(FAST_PATH_BROWSER)) {
+            return instrument(createRemoteDriver(browser, grid));
+        }
+
+        if (browser.equalsIgnoreCase("chrome")) {
+            return instrument(createChromeDriver());
+        } else if (browser.equalsIgnoreCase("firefox")) {
+            WebDriverManager.firefoxdriver().setup();
+            WebDriver ff = new FirefoxDriver(firefoxOptions());
+            ff.manage().window().maximize();
+            ff.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
+            ff.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
+            return instrument(ff);
+        } else if (browser.equalsIgnoreCase(FAST_PATH_BROWSER)) {
+            return createHtmlUnitDriver();
+        } else {
+            throw new IllegalArgumentException("Browser not supported: " + browser);
+        }
+    }
+
+    /**
+     * Grid to run on: -Dgrid.url, else grid.url from config.properties; null for local drivers.
+     * "local" starts the in-process grid ({@link LocalGrid}) with -Dgrid.slots node slots.
+     */
+    public static String gridUrl() {
+        String url = System.getProperty("grid.url");
+        if (url == null) {
+            ConfigReader.loadConfig("testdata/config.properties");
+            url = ConfigReader.getProperty("grid.url");
+        }
+        if (url == null || url.isBlank()) return null;
+        if (url.trim().equalsIgnoreCase("local")) return LocalGrid.start(Integer.getInteger("grid.slots", 4));
+        return url.trim();
+    }
+
+    /** RemoteWebDriver on the grid; waits for a free slot rather than failing when the grid is full. */
+    private static WebDriver createRemoteDriver(String browser, String gridUrl) {
+        Capabilities caps;
+        if (browser.equalsIgnoreCase("chrome")) {
+            caps = chromeOptions();
+        } else if (browser.equalsIgnoreCase("firefox")) {
+            caps = firefoxOptions();
+        } else {
+            throw new IllegalArgumentException("Browser not supported on grid: " + browser);
+        }
+
+        URL grid;
         try {
-            Path d = Path.of(downloadDirAbsolutePath);
-            if (!Files.exists(d)) Files.createDirectories(d);
-        } catch (Exception e) {
-            System.err.println("Could not create download dir: " + e.getMessage());
+            grid = URI.create(gridUrl).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid grid.url: " + gridUrl, e);
         }
 
-        // create Chrome with download prefs
-        driver = createChromeDriver(downloadDirAbsolutePath);
+        long deadline = System.nanoTime() + Duration.ofSeconds(GridSlots.queueTimeoutSeconds()).toNanos();
+        while (true) {
+            GridSlots.awaitFreeSlot(gridUrl, caps.getBrowserName(), deadline);
+            try {
+                RemoteWebDriver remote = new RemoteWebDriver(grid, caps);
+                // adds HasCdp etc. (over the grid's se:cdp endpoint) so resetSession keeps its fast path
+                WebDriver localDriver = new Augmenter().augment(remote);
+                localDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
+                localDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
+                localDriver.manage().window().maximize();
+                return localDriver;
+            } catch (SessionNotCreatedException e) {
+                // another runner took the slot between /status and the request
+                if (System.nanoTime() >= deadline) throw e;
+                System.out.println("DEBUG: Grid session not created, retrying: " + e.getRawMessage());
+            }
+        }
+    }
 
-        return driver;
+    // real browsers only: the fast path has no rendering/DevTools, so no paint timings, HAR, browser log or recording
+    private static WebDriver instrument(WebDriver session) {
+        HarRecorder.attach(session);
+        BrowserLogs.attach(session);
+        ScreenRecorder.attach(session);
+        // the recorders above keep per-session state; this tells them which test uses the session
+        List<WebDriverListener> listeners = new ArrayList<>(List.of(TestSessions.listener()));
+        if (PagePerformance.isEnabled()) listeners.add(PagePerformance.listener());
+        return new EventFiringDecorator<>(listeners.toArray(new WebDriverListener[0])).decorate(session);
+    }
+
+    // Firefox has no CDP; BiDi (webSocketUrl) carries the console/exception stream for BrowserLogs
+    private static FirefoxOptions firefoxOptions() {
+        FirefoxOptions options = new FirefoxOptions();
+        if (BrowserLogs.isEnabled()) options.setCapability("webSocketUrl", true);
+        return options;
+    }
+
+    /**
+     * Fast path is opt-in with -Dfastpath=true: @FastPath tests then run on HtmlUnit against the
+     * local stand-in, a copy of the site's markup and scripts, so the default run keeps them on the
+     * real browser and site.
+     */
+    public static boolean isFastPathEnabled() {
+        return Boolean.parseBoolean(System.getProperty("fastpath", "false"));
+    }
+
+    private static WebDriver createHtmlUnitDriver() {
+        // HtmlUnit logs every CSS/JS quirk of the page at WARNING
+        Logger.getLogger("org.htmlunit").setLevel(Level.OFF);
+
+        HtmlUnitDriver localDriver = new HtmlUnitDriver(BrowserVersion.CHROME, true);
+        // everything is in-process, so short waits are enough
+        localDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(1));
+        localDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(10));
+        localDriver.manage().timeouts().scriptTimeout(Duration.ofSeconds(10));
+        return localDriver;
     }
 
     /**
      * Creates and returns a ChromeDriver instance with stable options.
-     * If downloadDir is null, no download prefs are set.
      */
-    private static WebDriver createChromeDriver(String downloadDir) {
+    private static WebDriver createChromeDriver() {
         // ensure chromedriver binary matches local chrome
         WebDriverManager.chromedriver().setup();
 
+        // Create driver
+        WebDriver localDriver = new ChromeDriver(chromeOptions());
+
+        // Timeouts & window
+        localDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
+        localDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
+        localDriver.manage().window().maximize();
+
+        return localDriver;
+    }
+
+    // a Chrome shared by BrowserContexts: reaped like any session, but never one test's own
+    static WebDriver launchSharedChrome() {
+        SessionRegistry.checkBudget();
+        Set<Long> before = SessionRegistry.childProcesses();
+        WebDriver host = createChromeDriver();
+        SessionRegistry.Entry entry = SessionRegistry.register("chrome (shared)", before);
+        WebDriver bound = SessionRegistry.bind(entry, new EventFiringDecorator<>(entry).decorate(host));
+        SessionRegistry.keep(bound);
+        return bound;
+    }
+
+    // a chromedriver session on an already running Chrome; launch flags don't apply to it
+    static WebDriver attachChrome(String debuggerAddress) {
+        ChromeOptions options = new ChromeOptions();
+        options.setExperimentalOption("debuggerAddress", debuggerAddress);
+        WebDriver localDriver = new ChromeDriver(options);
+        localDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
+        localDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
+        return localDriver;
+    }
+
+    private static ChromeOptions chromeOptions() {
         ChromeOptions options = new ChromeOptions();
 
         // Recommended stable flags for CI / local automation
@@ -87,28 +252,93 @@ public class DriverFactory {
 
         // Accept insecure certs if your environment intercepts TLS
         options.setAcceptInsecureCerts(true);
+        return options;
+    }
 
-        
+    /**
+     * Recycles a session for the next test instead of relaunching the browser.
+     *
+     * Closes every window but the first, clears cookies and storage of the current origin,
+     * resets download behaviour and leaves the session on about:blank. On Chrome this is a
+     * handful of CDP commands (well under a second); other drivers fall back to WebDriver
+     * cookie deletion and a storage-clearing script.
+     *
+     * @throws IllegalStateException if the session is not clean afterwards; quit it instead of reusing
+     */
+    public static void resetSession(WebDriver session) {
+        if (session == null) return;
+        long start = System.nanoTime();
 
-        // Download prefs
-        if (downloadDir != null && !downloadDir.isEmpty()) {
-            Map<String, Object> prefs = new HashMap<>();
-            prefs.put("download.default_directory", downloadDir);
-            prefs.put("download.prompt_for_download", false);
-            prefs.put("download.directory_upgrade", true);
-            prefs.put("plugins.always_open_pdf_externally", true); // force PDF download instead of opening in viewer
-            options.setExperimentalOption("prefs", prefs);
+        // 1. windows/tabs opened by the test (e.g. order PDFs)
+        String first = null;
+        for (String handle : session.getWindowHandles()) {
+            if (first == null) {
+                first = handle;
+                continue;
+            }
+            session.switchTo().window(handle).close();
         }
+        if (first != null) session.switchTo().window(first);
 
-        // Create driver
-        WebDriver localDriver = new ChromeDriver(options);
+        // 2. sessionStorage belongs to the tab, so it has to be cleared from the page itself
+        String origin = originOf(session.getCurrentUrl());
+        Object leftInStorage = ((JavascriptExecutor) session).executeScript(CLEAR_STORAGE_JS);
 
-        // Timeouts & window
-        localDriver.manage().timeouts().implicitlyWait(Duration.ofSeconds(IMPLICIT_WAIT_SECONDS));
-        localDriver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(PAGE_LOAD_TIMEOUT_SECONDS));
-        localDriver.manage().window().maximize();
+        List<String> problems = new ArrayList<>();
+        if (session instanceof HasCdp) {
+            HasCdp cdp = (HasCdp) session;
+            cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            if (origin != null) {
+                cdp.executeCdpCommand("Storage.clearDataForOrigin",
+                    Map.of("origin", origin, "storageTypes", "local_storage,indexeddb,websql,cache_storage,service_workers"));
+            }
+            cdp.executeCdpCommand("Browser.setDownloadBehavior", Map.of("behavior", "default"));
+            session.get("about:blank");
 
-        return localDriver;
+            Object cookies = cdp.executeCdpCommand("Network.getAllCookies", Map.of()).get("cookies");
+            if (cookies instanceof List && !((List<?>) cookies).isEmpty()) {
+                problems.add(((List<?>) cookies).size() + " cookie(s) left");
+            }
+        } else {
+            session.manage().deleteAllCookies();
+            if (!session.manage().getCookies().isEmpty()) {
+                problems.add(session.manage().getCookies().size() + " cookie(s) left");
+            }
+            session.get("about:blank");
+        }
+
+        if (leftInStorage instanceof Number && ((Number) leftInStorage).intValue() > 0) {
+            problems.add(leftInStorage + " storage item(s) left on " + origin);
+        }
+        if (session.getWindowHandles().size() != 1) {
+            problems.add(session.getWindowHandles().size() + " windows open");
+        }
+        if (!"about:blank".equals(session.getCurrentUrl())) {
+            problems.add("still on " + session.getCurrentUrl());
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Session not clean after reset: " + String.join(", ", problems));
+        }
+        System.out.println("DEBUG: Session reset in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+            + (origin != null ? " (" + origin + ")" : ""));
+    }
+
+    private static final String CLEAR_STORAGE_JS =
+        "var left = 0;"
+        + "try { window.localStorage.clear(); left += window.localStorage.length; } catch (e) {}"
+        + "try { window.sessionStorage.clear(); left += window.sessionStorage.length; } catch (e) {}"
+        + "return left;";
+
+    // "https://bstackdemo.com" for http(s) pages, null for about:blank, data: etc.
+    static String originOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) return null;
+            return uri.getScheme() + "://" + uri.getAuthority();
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     public static WebDriver getDriver() {
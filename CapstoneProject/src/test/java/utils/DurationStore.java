@@ -0,0 +1,163 @@
+package utils;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Duration history in target/perf/durations.jsonl, one JSON sample per line.
+ *
+ * kind is "test" (TestNG method / scenario), "step" (Cucumber step, flow checkpoint block)
+ * or "action" (pages.* method). Opt-in with -Dperf.record=true (it instruments every pages.*
+ * method). Samples are buffered during the run and written once at suite end, when the file is
+ * also cut back to the last -Dperf.history.runs runs (default 20, never fewer than
+ * perf.baseline.runs + 1 so the gate keeps its baseline).
+ */
+public class DurationStore {
+    public static final Path FILE = Paths.get(System.getProperty("user.dir"), "target", "perf", "durations.jsonl");
+    public static final String RUN_ID = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+
+    private static final Queue<Sample> pending = new ConcurrentLinkedQueue<>();
+    private static final List<Sample> thisRun = new ArrayList<>();
+    private static boolean actionsHooked;
+
+    public static class Sample {
+        public final String run;
+        public final String kind;
+        public final String name;
+        public final double ms;
+        public final boolean ok;
+
+        Sample(String run, String kind, String name, double ms, boolean ok) {
+            this.run = run;
+            this.kind = kind;
+            this.name = name;
+            this.ms = ms;
+            this.ok = ok;
+        }
+
+        public String key() {
+            return kind + ":" + name;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("perf.record", "false"));
+    }
+
+    /** Starts timing pages.* methods through PageActionProbe. */
+    public static synchronized void recordPageActions() {
+        if (!isEnabled() || actionsHooked) return;
+        actionsHooked = true;
+        PageActionProbe.addListener((signature, durationNanos, error) -> {
+            if (signature.startsWith("pages.")) record("action", signature, durationNanos / 1_000_000.0, error == null);
+        });
+    }
+
+    public static void record(String kind, String name, double ms, boolean ok) {
+        if (!isEnabled()) return;
+        pending.add(new Sample(RUN_ID, kind, name, ms, ok));
+    }
+
+    /** Adds buffered samples to the history file, dropping the runs beyond perf.history.runs. */
+    public static synchronized void flush() {
+        if (pending.isEmpty()) return;
+        try {
+            Files.createDirectories(FILE.getParent());
+            List<String> kept = earlierRunLines();
+            Path tmp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (String line : kept) {
+                    w.write(line);
+                    w.newLine();
+                }
+                Sample s;
+                while ((s = pending.poll()) != null) {
+                    thisRun.add(s);
+                    JSONObject o = new JSONObject();
+                    o.put("run", s.run);
+                    o.put("kind", s.kind);
+                    o.put("name", s.name);
+                    o.put("ms", Math.round(s.ms * 10) / 10.0);
+                    o.put("ok", s.ok);
+                    w.write(o.toString());
+                    w.newLine();
+                }
+            }
+            Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write durations: " + e.getMessage());
+        }
+    }
+
+    // lines of the newest earlier runs, leaving room for this one
+    private static List<String> earlierRunLines() throws IOException {
+        List<String> out = new ArrayList<>();
+        if (!Files.exists(FILE)) return out;
+        int baselineRuns = Integer.parseInt(System.getProperty("perf.baseline.runs", "5"));
+        int keepRuns = Math.max(Integer.getInteger("perf.history.runs", 20), baselineRuns + 1) - 1;
+        List<String> lines = Files.readAllLines(FILE, StandardCharsets.UTF_8);
+        List<String> runOf = new ArrayList<>();
+        Set<String> runs = new TreeSet<>();
+        for (String line : lines) {
+            String run = null;
+            try {
+                run = new JSONObject(line).getString("run");
+            } catch (Exception corrupt) {
+                // blank or truncated line: dropped
+            }
+            runOf.add(run);
+            if (run != null && !RUN_ID.equals(run)) runs.add(run);
+        }
+        // run ids are timestamps, so they sort by age
+        Set<String> keep = new HashSet<>(new ArrayList<>(runs).subList(Math.max(0, runs.size() - keepRuns), runs.size()));
+        int droppedRuns = runs.size() - keep.size();
+        for (int i = 0; i < lines.size(); i++) {
+            if (keep.contains(runOf.get(i))) out.add(lines.get(i));
+        }
+        if (droppedRuns > 0) System.out.println("DEBUG: Duration history: dropped " + droppedRuns + " run(s) beyond perf.history.runs");
+        return out;
+    }
+
+    /** Samples flushed by this JVM. */
+    public static synchronized List<Sample> currentRun() {
+        return new ArrayList<>(thisRun);
+    }
+
+    /** Every sample on disk from earlier runs (this run excluded). */
+    public static List<Sample> history() {
+        List<Sample> out = new ArrayList<>();
+        if (!Files.exists(FILE)) return out;
+        try {
+            for (String line : Files.readAllLines(FILE, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    JSONObject o = new JSONObject(line);
+                    if (RUN_ID.equals(o.getString("run"))) continue;
+                    out.add(new Sample(o.getString("run"), o.getString("kind"), o.getString("name"),
+                        o.getDouble("ms"), o.optBoolean("ok", true)));
+                } catch (Exception corrupt) {
+                    // a truncated last line from a killed run must not break the gate
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not read duration history: " + e.getMessage());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,19 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that only reads DOM/text and can run on the in-process HtmlUnit driver
+ * against the local bstackdemo stand-in ({@link FixtureServer}) instead of a real Chrome.
+ *
+ * BaseTest swaps {@code driver} and {@code baseUrl} for annotated methods (or all methods of an
+ * annotated class) when the run is started with -Dfastpath=true; Cucumber scenarios opt in with
+ * the {@code @fastpath} tag. Without it they run on the real browser and site like any other test.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface FastPath {
+}
@@ -0,0 +1,92 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Local stand-in for bstackdemo.com used by fast-path (HtmlUnit) tests.
+ *
+ * Serves src/test/resources/fixtures/bstackdemo over http://127.0.0.1:&lt;port&gt;/ so the page
+ * gets a real origin (cookies, localStorage) like the live app. Unknown paths fall back to
+ * index.html, the same way the real single-page app routes /checkout, /orders etc. API paths
+ * (/api/products) are answered from the matching .json file, in the live API's shape.
+ */
+public final class FixtureServer {
+    private static final String ROOT = "fixtures/bstackdemo/";
+    private static HttpServer server;
+
+    private FixtureServer() {}
+
+    /** Starts the server once per JVM and returns its base URL (with trailing slash). */
+    public static synchronized String start() {
+        if (server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+                server.createContext("/", FixtureServer::serve);
+                server.start();
+                System.out.println("DEBUG: FixtureServer serving " + ROOT + " at " + baseUrl());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not start fixture server", e);
+            }
+        }
+        return baseUrl();
+    }
+
+    public static synchronized String baseUrl() {
+        if (server == null) return null;
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void serve(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().replaceFirst("^/+", "");
+            if (path.startsWith("api/") && !path.endsWith(".json")) path += ".json";
+            byte[] body = path.contains("..") ? null : read(ROOT + path);
+            if (body == null && !path.startsWith("api/")) {
+                path = "index.html";
+                body = read(ROOT + path);
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType(path));
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] read(String resource) throws IOException {
+        if (resource.endsWith("/")) return null;
+        try (InputStream in = FixtureServer.class.getClassLoader().getResourceAsStream(resource)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    private static String contentType(String path) {
+        if (path.endsWith(".html")) return "text/html; charset=utf-8";
+        if (path.endsWith(".js")) return "application/javascript; charset=utf-8";
+        if (path.endsWith(".json")) return "application/json; charset=utf-8";
+        if (path.endsWith(".css")) return "text/css; charset=utf-8";
+        if (path.endsWith(".png")) return "image/png";
+        return "application/octet-stream";
+    }
+}
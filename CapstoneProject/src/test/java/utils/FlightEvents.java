@@ -0,0 +1,283 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import net.bytebuddy.agent.ByteBuddyAgent;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.asm.Advice;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isSynthetic;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * Java Flight Recorder events for the test run, so slow steps can be laid over GC, CPU and
+ * thread activity of the runner JVM in one JMC timeline:
+ * - capstone.PageAction: every pages.* method (duration, error)
+ * - capstone.Wait: every FluentWait/WebDriverWait.until (condition, timeout, outcome)
+ * - capstone.DriverCommand: every WebDriver/WebElement call of sessions from DriverFactory
+ *
+ * -Djfr.record=true (or mvn -Pjfr) records the suite with the "profile" settings into
+ * target/jfr/&lt;suite&gt;-&lt;time&gt;.jfr. The events are also woven when a recording was already
+ * started with -XX:StartFlightRecording. Otherwise nothing is woven or wrapped, so runs that
+ * don't record pay nothing.
+ */
+public final class FlightEvents {
+    public static final Path JFR_DIR = Paths.get(System.getProperty("user.dir"), "target", "jfr");
+
+    private static Recording recording;
+    private static Path recordingFile;
+    private static volatile boolean active;
+    private static boolean woven;
+
+    private FlightEvents() {}
+
+    @Name("capstone.PageAction")
+    @Label("Page Action")
+    @Category({"Capstone", "Tests"})
+    @Description("A pages.* method call")
+    @StackTrace(false)
+    public static class PageActionEvent extends Event {
+        @Label("Method")
+        public String method;
+
+        @Label("Error")
+        public String error;
+    }
+
+    @Name("capstone.Wait")
+    @Label("Wait")
+    @Category({"Capstone", "Tests"})
+    @Description("A FluentWait/WebDriverWait.until call")
+    @StackTrace(false)
+    public static class WaitEvent extends Event {
+        @Label("Condition")
+        public String condition;
+
+        @Label("Timeout")
+        @Timespan(Timespan.MILLISECONDS)
+        public long timeout;
+
+        @Label("Outcome")
+        @Description("met, timeout, or the exception that ended the wait")
+        public String outcome;
+    }
+
+    @Name("capstone.DriverCommand")
+    @Label("Driver Command")
+    @Category({"Capstone", "WebDriver"})
+    @StackTrace(false)
+    public static class DriverCommandEvent extends Event {
+        @Label("Command")
+        public String command;
+
+        @Label("Target")
+        public String target;
+
+        @Label("Error")
+        public String error;
+    }
+
+    public static boolean isRecordingRequested() {
+        return Boolean.parseBoolean(System.getProperty("jfr.record", "false"));
+    }
+
+    /** Starts the suite recording (-Djfr.record) and weaves the events when anything records. */
+    public static synchronized void start(String suiteName) {
+        if (isRecordingRequested() && recording == null) {
+            try {
+                Files.createDirectories(JFR_DIR);
+                String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+                recordingFile = JFR_DIR.resolve(suiteName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + stamp + ".jfr");
+                recording = new Recording(Configuration.getConfiguration("profile"));
+                recording.setName("capstone-" + suiteName);
+                recording.setToDisk(true);
+                recording.setDestination(recordingFile);
+                recording.start();
+                System.out.println("DEBUG: Flight recording to " + recordingFile);
+            } catch (Exception e) {
+                System.err.println("DEBUG: Flight recording not started: " + e.getMessage());
+                recording = null;
+            }
+        }
+        // isInitialized first: asking for the recorder would start JFR
+        active = recording != null
+            || (FlightRecorder.isInitialized() && !FlightRecorder.getFlightRecorder().getRecordings().isEmpty());
+        if (active && !woven) {
+            weave();
+            woven = true;
+        }
+    }
+
+    /** Stops the suite recording; the .jfr is written to target/jfr. */
+    public static synchronized Path stop() {
+        if (recording == null) return null;
+        Path done = recordingFile;
+        try {
+            recording.stop();
+            recording.close();
+            System.out.println("DEBUG: Flight recording written: " + done);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Flight recording not written: " + e.getMessage());
+        } finally {
+            recording = null;
+        }
+        return done;
+    }
+
+    /** Listener emitting a new session's calls as DriverCommand events; null when nothing records. */
+    public static WebDriverListener listener() {
+        return active ? new CommandListener() : null;
+    }
+
+    private static void weave() {
+        ByteBuddyAgent.install();
+        new AgentBuilder.Default()
+            .disableClassFormatChanges()
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .type(nameStartsWith("pages."))
+            .transform((builder, type, loader, module, domain) ->
+                builder.visit(Advice.to(ActionAdvice.class).on(isMethod().and(not(isSynthetic())).and(not(isAbstract())))))
+            .type(named("org.openqa.selenium.support.ui.FluentWait"))
+            .transform((builder, type, loader, module, domain) ->
+                builder.visit(Advice.to(WaitAdvice.class).on(named("until"))))
+            .installOn(ByteBuddyAgent.getInstrumentation());
+        System.out.println("DEBUG: Flight events woven into pages.* and FluentWait.until");
+    }
+
+    /** Called from the woven advice; must stay public. */
+    public static Object beginAction() {
+        PageActionEvent e = new PageActionEvent();
+        if (!e.isEnabled()) return null;
+        e.begin();
+        return e;
+    }
+
+    /** Called from the woven advice; must stay public. */
+    public static void endAction(Object event, String method, Throwable error) {
+        if (!(event instanceof PageActionEvent)) return;
+        PageActionEvent e = (PageActionEvent) event;
+        e.end();
+        if (!e.shouldCommit()) return;
+        e.method = method;
+        e.error = error == null ? null : error.getClass().getSimpleName();
+        e.commit();
+    }
+
+    /** Called from the woven advice; must stay public. */
+    public static Object beginWait() {
+        WaitEvent e = new WaitEvent();
+        if (!e.isEnabled()) return null;
+        e.begin();
+        return e;
+    }
+
+    /** Called from the woven advice; must stay public. */
+    public static void endWait(Object event, Object condition, Supplier<?> message, Duration timeout, Throwable error) {
+        if (!(event instanceof WaitEvent)) return;
+        WaitEvent e = (WaitEvent) event;
+        e.end();
+        if (!e.shouldCommit()) return;
+        Object named = message == null ? null : message.get();
+        e.condition = named != null ? named.toString() : describe(condition);
+        e.timeout = timeout == null ? -1 : timeout.toMillis();
+        e.outcome = error == null ? "met" : error instanceof TimeoutException ? "timeout" : error.getClass().getSimpleName();
+        e.commit();
+    }
+
+    // lambdas print as Owner$$Lambda/0x...@hash; the owner is what identifies them
+    private static String describe(Object condition) {
+        String s = String.valueOf(condition);
+        int lambda = s.indexOf("$$Lambda");
+        return lambda > 0 ? s.substring(0, lambda) + " (lambda)" : s;
+    }
+
+    public static class ActionAdvice {
+        @Advice.OnMethodEnter
+        public static Object enter() {
+            return FlightEvents.beginAction();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void exit(@Advice.Origin("#t.#m") String method,
+                                @Advice.Enter Object event,
+                                @Advice.Thrown Throwable error) {
+            FlightEvents.endAction(event, method, error);
+        }
+    }
+
+    public static class WaitAdvice {
+        @Advice.OnMethodEnter
+        public static Object enter() {
+            return FlightEvents.beginWait();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void exit(@Advice.Enter Object event,
+                                @Advice.Argument(0) Object condition,
+                                @Advice.FieldValue("messageSupplier") Supplier<?> message,
+                                @Advice.FieldValue("timeout") Duration timeout,
+                                @Advice.Thrown Throwable error) {
+            FlightEvents.endWait(event, condition, message, timeout, error);
+        }
+    }
+
+    /** Emits one DriverCommand event per call; public for EventFiringDecorator. */
+    public static class CommandListener implements WebDriverListener {
+        private final ThreadLocal<Deque<DriverCommandEvent>> open = ThreadLocal.withInitial(ArrayDeque::new);
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            DriverCommandEvent e = new DriverCommandEvent();
+            e.begin();
+            open.get().push(e);
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            commit(open.get().pop(), target, method, null);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            commit(open.get().pop(), target, method, e.getCause());
+        }
+
+        private static void commit(DriverCommandEvent e, Object target, Method method, Throwable error) {
+            e.end();
+            if (!e.shouldCommit()) return;
+            e.command = method.getName();
+            e.target = method.getDeclaringClass().getSimpleName();
+            e.error = error == null ? null : error.getClass().getSimpleName();
+            e.commit();
+        }
+    }
+}
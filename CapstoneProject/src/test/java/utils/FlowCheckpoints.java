@@ -0,0 +1,188 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Named checkpoints for long flows (EndToEndCombinedTests methods, Cucumber scenarios).
+ *
+ * Each checkpoint saves URL, cookies, localStorage and sessionStorage to
+ * target/checkpoints/&lt;flow&gt;.json. Run with -Dcheckpoint.resume=true to restore the last
+ * good checkpoint of a flow and skip every block up to and including it:
+ *
+ * <pre>
+ * FlowCheckpoints flow = FlowCheckpoints.begin(driver, "fullCheckoutFlow");
+ * if (flow.shouldRun("loggedIn")) { ...login...; flow.checkpoint("loggedIn"); }
+ * ...
+ * flow.complete();
+ * </pre>
+ */
+public class FlowCheckpoints {
+    private static final Path CHECKPOINT_DIR = Paths.get(System.getProperty("user.dir"), "target", "checkpoints");
+    private static final ThreadLocal<FlowCheckpoints> current = new ThreadLocal<>();
+
+    private final WebDriver driver;
+    private final String flowName;
+    private final Path file;
+    private String resumedFrom;
+    private boolean skipping;
+    private long blockStart = System.nanoTime();
+
+    private FlowCheckpoints(WebDriver driver, String flowName) {
+        this.driver = driver;
+        this.flowName = flowName;
+        this.file = CHECKPOINT_DIR.resolve(flowName.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+    }
+
+    public static boolean isResumeMode() {
+        return Boolean.parseBoolean(System.getProperty("checkpoint.resume", "false"));
+    }
+
+    /**
+     * Starts a flow. In resume mode the last saved checkpoint (if any) is restored into the
+     * browser; otherwise any stale checkpoint of this flow is discarded.
+     */
+    public static FlowCheckpoints begin(WebDriver driver, String flowName) {
+        FlowCheckpoints flow = new FlowCheckpoints(driver, flowName);
+        try {
+            if (isResumeMode() && Files.exists(flow.file)) {
+                flow.restore(new JSONObject(Files.readString(flow.file, StandardCharsets.UTF_8)));
+            } else {
+                Files.deleteIfExists(flow.file);
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: checkpoint restore failed for " + flowName + ", running from start: " + e.getMessage());
+            flow.resumedFrom = null;
+            flow.skipping = false;
+        }
+        flow.blockStart = System.nanoTime();
+        current.set(flow);
+        return flow;
+    }
+
+    /** Flow started on this thread (used by Cucumber steps, which do not own the flow). */
+    public static FlowCheckpoints current() {
+        return current.get();
+    }
+
+    /**
+     * False while resuming and the named block was already completed in the previous run.
+     * Must be called in the same order the checkpoints were recorded.
+     */
+    public boolean shouldRun(String checkpointName) {
+        if (!skipping) return true;
+        if (checkpointName.equals(resumedFrom)) skipping = false;
+        System.out.println("DEBUG: [" + flowName + "] skipping '" + checkpointName + "' (resumed from '" + resumedFrom + "')");
+        return false;
+    }
+
+    public String getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /** Captures the current browser state as the last good point of this flow. */
+    public void checkpoint(String checkpointName) {
+        // the block that just finished is a "step" for the duration store / perf gate
+        DurationStore.record("step", flowName + " > " + checkpointName, (System.nanoTime() - blockStart) / 1_000_000.0, true);
+        try {
+            JSONObject state = new JSONObject();
+            state.put("flow", flowName);
+            state.put("checkpoint", checkpointName);
+            state.put("savedAt", new Date().toString());
+            state.put("url", driver.getCurrentUrl());
+
+            JSONArray cookies = new JSONArray();
+            for (Cookie c : driver.manage().getCookies()) {
+                JSONObject jc = new JSONObject();
+                jc.put("name", c.getName());
+                jc.put("value", c.getValue());
+                jc.put("path", c.getPath());
+                jc.put("domain", c.getDomain());
+                jc.put("secure", c.isSecure());
+                jc.put("httpOnly", c.isHttpOnly());
+                if (c.getExpiry() != null) jc.put("expiry", c.getExpiry().getTime());
+                if (c.getSameSite() != null) jc.put("sameSite", c.getSameSite());
+                cookies.put(jc);
+            }
+            state.put("cookies", cookies);
+            state.put("localStorage", readStorage("localStorage"));
+            state.put("sessionStorage", readStorage("sessionStorage"));
+
+            Files.createDirectories(CHECKPOINT_DIR);
+            Files.writeString(file, state.toString(2), StandardCharsets.UTF_8);
+            System.out.println("DEBUG: [" + flowName + "] checkpoint '" + checkpointName + "' saved");
+        } catch (Exception e) {
+            // a missing checkpoint only costs retry time, never fail the test for it
+            System.err.println("DEBUG: checkpoint '" + checkpointName + "' not saved: " + e.getMessage());
+        }
+        blockStart = System.nanoTime();
+    }
+
+    /** Flow finished successfully: nothing left to resume. */
+    public void complete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception ignored) {}
+        current.remove();
+    }
+
+    private JSONObject readStorage(String storage) {
+        Object raw = ((JavascriptExecutor) driver).executeScript(
+            "var s = window." + storage + ", o = {};"
+            + "for (var i = 0; i < s.length; i++) { var k = s.key(i); o[k] = s.getItem(k); }"
+            + "return o;");
+        return raw instanceof Map ? new JSONObject((Map<?, ?>) raw) : new JSONObject();
+    }
+
+    private void restore(JSONObject state) {
+        String url = state.getString("url");
+        URI uri = URI.create(url);
+        // cookies and storage can only be written while on the origin
+        driver.get(uri.getScheme() + "://" + uri.getAuthority() + "/");
+
+        driver.manage().deleteAllCookies();
+        JSONArray cookies = state.optJSONArray("cookies");
+        for (int i = 0; cookies != null && i < cookies.length(); i++) {
+            JSONObject jc = cookies.getJSONObject(i);
+            Cookie.Builder b = new Cookie.Builder(jc.getString("name"), jc.getString("value"))
+                .path(jc.optString("path", "/"))
+                .isSecure(jc.optBoolean("secure"))
+                .isHttpOnly(jc.optBoolean("httpOnly"));
+            if (jc.has("domain")) b.domain(jc.getString("domain"));
+            if (jc.has("expiry")) b.expiresOn(new Date(jc.getLong("expiry")));
+            if (jc.has("sameSite")) b.sameSite(jc.getString("sameSite"));
+            try {
+                driver.manage().addCookie(b.build());
+            } catch (Exception e) {
+                System.err.println("DEBUG: could not restore cookie " + jc.getString("name") + ": " + e.getMessage());
+            }
+        }
+        writeStorage("localStorage", state.optJSONObject("localStorage"));
+        writeStorage("sessionStorage", state.optJSONObject("sessionStorage"));
+
+        driver.get(url);
+        resumedFrom = state.getString("checkpoint");
+        skipping = true;
+        System.out.println("DEBUG: [" + flowName + "] resumed from checkpoint '" + resumedFrom + "' at " + url
+            + " (" + file.toString().replace(System.getProperty("user.dir") + File.separator, "") + ")");
+    }
+
+    private void writeStorage(String storage, JSONObject values) {
+        ((JavascriptExecutor) driver).executeScript(
+            "var s = window." + storage + "; s.clear();"
+            + "var o = arguments[0]; for (var k in o) { s.setItem(k, o[k]); }",
+            values == null ? Map.of() : values.toMap());
+    }
+}
@@ -0,0 +1,84 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Slot-aware queuing for the grid mode: reads the grid's /status and holds a new session
+ * request until a node reports a free slot for the browser, so tests wait for capacity
+ * instead of failing with SessionNotCreatedException.
+ */
+public final class GridSlots {
+    private static final HttpClient http = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private GridSlots() {}
+
+    /** Max wait for a slot, -Dgrid.queue.timeout in seconds (default 300). */
+    public static int queueTimeoutSeconds() {
+        return Integer.getInteger("grid.queue.timeout", 300);
+    }
+
+    /**
+     * Free slots for the browser across all UP nodes, or -1 if the status could not be read
+     * (older grids, auth proxies); callers then just let the grid queue the request.
+     */
+    public static int freeSlots(String gridUrl, String browserName) {
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(gridUrl.replaceAll("/+$", "") + "/status"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+            JSONObject value = new JSONObject(http.send(req, HttpResponse.BodyHandlers.ofString()).body()).getJSONObject("value");
+            JSONArray nodes = value.optJSONArray("nodes");
+            int free = 0;
+            for (int i = 0; nodes != null && i < nodes.length(); i++) {
+                JSONObject node = nodes.getJSONObject(i);
+                if (!"UP".equalsIgnoreCase(node.optString("availability", "UP"))) continue;
+                JSONArray slots = node.optJSONArray("slots");
+                for (int j = 0; slots != null && j < slots.length(); j++) {
+                    JSONObject slot = slots.getJSONObject(j);
+                    String stereotype = slot.optJSONObject("stereotype") == null ? "" : slot.getJSONObject("stereotype").optString("browserName");
+                    if (slot.isNull("session") && browserName.equalsIgnoreCase(stereotype)) free++;
+                }
+            }
+            return free;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not read grid status from " + gridUrl + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /** Blocks until a slot is free or the deadline (System.nanoTime based) passes. */
+    public static void awaitFreeSlot(String gridUrl, String browserName, long deadlineNanos) {
+        long waitedFrom = System.nanoTime();
+        boolean logged = false;
+        while (System.nanoTime() < deadlineNanos) {
+            int free = freeSlots(gridUrl, browserName);
+            if (free != 0) break;
+            if (!logged) {
+                System.out.println("DEBUG: No free " + browserName + " slot on " + gridUrl + ", waiting for capacity");
+                logged = true;
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (logged) {
+            System.out.println("DEBUG: Waited " + (System.nanoTime() - waitedFrom) / 1_000_000 + " ms for a grid slot");
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional per-test HAR capture from DevTools Network events (-Dhar=true).
+ *
+ * DriverFactory attaches a recorder to every CDP-capable session it creates. A session's
+ * requests belong to the test that is using it (see TestSessions), so parallel tests on
+ * separate sessions each get their own file: target/har/&lt;test&gt;.har.gz, with -2, -3... for
+ * further sessions of the same test. A file is opened with the test's first completed request
+ * and closed by {@link #endTest()}; completed requests are serialized and gzip-written on a
+ * single background thread, never on the test thread.
+ *
+ * Settings: har.maxMb (uncompressed cap per file, default 20), har.contentTypes (comma list of
+ * mime-type fragments to keep, default "html,json,javascript,text,xml"; "*" keeps everything).
+ * Raw CDP method names are used so capture does not depend on the Chrome version.
+ */
+public class HarRecorder {
+    public static final Path HAR_DIR = Paths.get(System.getProperty("user.dir"), "target", "har");
+
+    private static final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "har-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    // one recorder per DevTools connection, as for PdfCapture
+    private static final Map<DevTools, HarRecorder> recorders = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, List<Path>> capturedFiles = new LinkedHashMap<>();
+
+    private final WebDriver session;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    // writer-thread state: the HAR file this session is writing for its current test
+    private OutputStream out;
+    private Path outFile;
+    private String outTest;
+    private String closedTest;
+    private long outBytes;
+    private int outEntries;
+    private int dropped;
+
+    /** What is known about one request until it finishes or fails. */
+    private static class Pending {
+        String test;
+        Map<String, Object> request;
+        Map<String, Object> response;
+        String resourceType;
+        double startTimestamp;
+        double wallTime;
+    }
+
+    private HarRecorder(WebDriver session) {
+        this.session = session;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("har", "false"));
+    }
+
+    /** Entries and file operations queued for the writer thread. */
+    public static int pendingWrites() {
+        return writer.getQueue().size();
+    }
+
+    /** Subscribes to Network events of the session; no-op for drivers without DevTools. */
+    public static void attach(WebDriver session) {
+        if (!isEnabled() || !(session instanceof HasDevTools)) return;
+        try {
+            DevTools devTools = ((HasDevTools) session).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            HarRecorder recorder = new HarRecorder(session);
+            devTools.addListener(event("Network.requestWillBeSent"), recorder::onRequest);
+            devTools.addListener(event("Network.responseReceived"), recorder::onResponse);
+            devTools.addListener(event("Network.loadingFinished"), e -> recorder.onDone(e, null));
+            devTools.addListener(event("Network.loadingFailed"), e -> recorder.onDone(e, String.valueOf(e.get("errorText"))));
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            recorders.put(devTools, recorder);
+        } catch (Exception e) {
+            System.err.println("DEBUG: HAR capture not available for this session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the HAR files of the calling thread's running test, one per session it used that
+     * made requests; returns their paths (empty when capture is off). Call before the test ends.
+     */
+    public static List<Path> endTest() {
+        String test = TestSessions.name();
+        if (!isEnabled() || test == null) return List.of();
+        List<Future<Path>> closing = new ArrayList<>();
+        for (WebDriver session : TestSessions.used()) {
+            if (!(session instanceof HasDevTools)) continue;
+            HarRecorder recorder = recorders.get(((HasDevTools) session).getDevTools());
+            if (recorder != null) closing.add(writer.submit(() -> recorder.close(test)));
+        }
+        List<Path> files = new ArrayList<>();
+        for (Future<Path> f : closing) {
+            try {
+                Path done = f.get(10, TimeUnit.SECONDS);
+                if (done != null) files.add(done);
+            } catch (Exception e) {
+                System.err.println("DEBUG: HAR not closed cleanly: " + e.getMessage());
+            }
+        }
+        return files;
+    }
+
+    /** Links every captured HAR from a "Network captures (HAR)" Extent test. */
+    public static void report() {
+        List<Map.Entry<String, List<Path>>> files;
+        synchronized (capturedFiles) {
+            if (capturedFiles.isEmpty()) return;
+            files = new ArrayList<>(capturedFiles.entrySet());
+        }
+        ReportUtils.createTest("Network captures (HAR)");
+        for (Map.Entry<String, List<Path>> f : files) {
+            for (Path har : f.getValue()) ReportUtils.logInfo(f.getKey() + ": " + link(har));
+        }
+    }
+
+    /** Report-relative link to a HAR file. */
+    static String link(Path har) {
+        return "<a href='" + ReportUtils.link(har) + "'>" + har.getFileName() + "</a>";
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRequest(Map<String, Object> e) {
+        String test = TestSessions.ownerOf(session);
+        if (test == null) return;
+        Pending p = new Pending();
+        p.test = test;
+        p.request = (Map<String, Object>) e.get("request");
+        p.resourceType = String.valueOf(e.get("type"));
+        p.startTimestamp = num(e.get("timestamp"));
+        p.wallTime = num(e.get("wallTime"));
+        // redirects reuse the requestId; the earlier hop is dropped
+        pending.put(String.valueOf(e.get("requestId")), p);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onResponse(Map<String, Object> e) {
+        Pending p = pending.get(String.valueOf(e.get("requestId")));
+        if (p != null) p.response = (Map<String, Object>) e.get("response");
+    }
+
+    private void onDone(Map<String, Object> e, String error) {
+        Pending p = pending.remove(String.valueOf(e.get("requestId")));
+        if (p == null) return;
+        String mime = p.response == null ? "" : String.valueOf(p.response.get("mimeType"));
+        if (error == null && !keepContentType(mime)) return;
+        JSONObject entry = toEntry(p, num(e.get("timestamp")), num(e.get("encodedDataLength")), error);
+        writer.submit(() -> append(p.test, entry));
+    }
+
+    private static boolean keepContentType(String mime) {
+        String filter = System.getProperty("har.contentTypes", "html,json,javascript,text,xml");
+        if (filter.trim().equals("*")) return true;
+        String m = mime.toLowerCase(Locale.ROOT);
+        return Arrays.stream(filter.split(",")).map(String::trim).anyMatch(f -> !f.isEmpty() && m.contains(f));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject toEntry(Pending p, double endTimestamp, double encodedLength, String error) {
+        Map<String, Object> res = p.response == null ? Map.of() : p.response;
+        Map<String, Object> timing = res.get("timing") instanceof Map ? (Map<String, Object>) res.get("timing") : Map.of();
+
+        JSONObject request = new JSONObject();
+        request.put("method", String.valueOf(p.request.get("method")));
+        request.put("url", String.valueOf(p.request.get("url")));
+        request.put("httpVersion", String.valueOf(res.getOrDefault("protocol", "")));
+        request.put("cookies", new JSONArray());
+        request.put("headers", headers(p.request.get("headers")));
+        request.put("queryString", new JSONArray());
+        request.put("headersSize", -1);
+        Object post = p.request.get("postData");
+        request.put("bodySize", post == null ? 0 : String.valueOf(post).length());
+
+        JSONObject response = new JSONObject();
+        response.put("status", (int) Math.max(0, num(res.get("status"))));
+        response.put("statusText", error != null ? error : String.valueOf(res.getOrDefault("statusText", "")));
+        response.put("httpVersion", String.valueOf(res.getOrDefault("protocol", "")));
+        response.put("cookies", new JSONArray());
+        response.put("headers", headers(res.get("headers")));
+        response.put("content", new JSONObject()
+            .put("size", (long) Math.max(0, encodedLength))
+            .put("mimeType", String.valueOf(res.getOrDefault("mimeType", ""))));
+        response.put("redirectURL", "");
+        response.put("headersSize", -1);
+        response.put("bodySize", (long) Math.max(-1, encodedLength));
+
+        // CDP timing offsets are ms relative to timing.requestTime (seconds)
+        double dns = span(timing, "dnsStart", "dnsEnd");
+        double connect = span(timing, "connectStart", "connectEnd");
+        double ssl = span(timing, "sslStart", "sslEnd");
+        double send = span(timing, "sendStart", "sendEnd");
+        double wait = span(timing, "sendEnd", "receiveHeadersEnd");
+        double headersDone = num(timing.get("requestTime")) + num(timing.get("receiveHeadersEnd")) / 1000;
+        double receive = timing.isEmpty() ? 0 : Math.max(0, (endTimestamp - headersDone) * 1000);
+        double total = Math.max(0, (endTimestamp - p.startTimestamp) * 1000);
+
+        JSONObject entry = new JSONObject();
+        entry.put("startedDateTime", Instant.ofEpochMilli((long) (p.wallTime * 1000)).toString());
+        entry.put("time", round(total));
+        entry.put("request", request);
+        entry.put("response", response);
+        entry.put("cache", new JSONObject());
+        entry.put("timings", new JSONObject()
+            .put("blocked", -1).put("dns", round(dns)).put("connect", round(connect)).put("ssl", round(ssl))
+            .put("send", round(Math.max(0, send))).put("wait", round(Math.max(0, wait))).put("receive", round(receive)));
+        entry.put("_resourceType", p.resourceType);
+        if (error != null) entry.put("_error", error);
+        return entry;
+    }
+
+    private static JSONArray headers(Object raw) {
+        JSONArray list = new JSONArray();
+        if (raw instanceof Map) {
+            for (Map.Entry<?, ?> h : ((Map<?, ?>) raw).entrySet()) {
+                list.put(new JSONObject().put("name", String.valueOf(h.getKey())).put("value", String.valueOf(h.getValue())));
+            }
+        }
+        return list;
+    }
+
+    // writer thread only, as is everything below
+    private void append(String test, JSONObject entry) {
+        if (test.equals(closedTest)) return; // finished after its test ended
+        if (!test.equals(outTest)) {
+            closeCurrent();
+            open(test);
+        }
+        if (out == null) return;
+        long cap = Long.getLong("har.maxMb", 20L) * 1024 * 1024;
+        String json = entry.toString();
+        if (outBytes + json.length() > cap) {
+            dropped++;
+            return;
+        }
+        write((outEntries == 0 ? "" : ",") + json);
+        outEntries++;
+    }
+
+    private void open(String test) {
+        outTest = test;
+        outBytes = 0;
+        outEntries = 0;
+        dropped = 0;
+        try {
+            Files.createDirectories(HAR_DIR);
+            String safe = test.replaceAll("[^A-Za-z0-9._-]", "_");
+            synchronized (capturedFiles) {
+                List<Path> files = capturedFiles.computeIfAbsent(test, k -> new ArrayList<>());
+                outFile = HAR_DIR.resolve(safe + (files.isEmpty() ? "" : "-" + (files.size() + 1)) + ".har.gz");
+                files.add(outFile);
+            }
+            out = new GZIPOutputStream(Files.newOutputStream(outFile), 64 * 1024);
+            write("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"CapstoneProject HarRecorder\",\"version\":\"1.0\"},"
+                + "\"pages\":[],\"entries\":[");
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not open HAR file for " + test + ": " + e.getMessage());
+            out = null;
+        }
+    }
+
+    // the test's file, or null when this session wrote none for it
+    private Path close(String test) {
+        closedTest = test;
+        if (!test.equals(outTest)) return null;
+        Path done = out == null ? null : outFile;
+        closeCurrent();
+        return done;
+    }
+
+    private void write(String s) {
+        try {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            outBytes += bytes.length;
+        } catch (Exception e) {
+            System.err.println("DEBUG: HAR write failed, capture stopped for this test: " + e.getMessage());
+            try { out.close(); } catch (Exception ignored) {}
+            out = null;
+        }
+    }
+
+    private void closeCurrent() {
+        outTest = null;
+        if (out == null) return;
+        String comment = dropped == 0 ? "" : dropped + " entries dropped over har.maxMb";
+        write("],\"comment\":\"" + comment + "\"}}");
+        try {
+            if (out != null) out.close();
+        } catch (Exception e) {
+            System.err.println("DEBUG: HAR close failed: " + e.getMessage());
+        }
+        System.out.println("DEBUG: HAR " + outFile.getFileName() + ": " + outEntries + " entries"
+            + (dropped > 0 ? ", " + dropped + " dropped (cap)" : ""));
+        out = null;
+    }
+
+    private static double span(Map<String, Object> timing, String from, String to) {
+        double a = num(timing.get(from)), b = num(timing.get(to));
+        return a < 0 || b < 0 ? -1 : b - a;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : -1;
+    }
+}
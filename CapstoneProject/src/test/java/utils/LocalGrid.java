@@ -0,0 +1,57 @@
+package utils;
+
+import org.openqa.selenium.grid.commands.Standalone;
+import org.openqa.selenium.grid.config.MapConfig;
+import org.openqa.selenium.grid.server.Server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
+
+/**
+ * In-process Selenium Grid (standalone = router, distributor, session queue and one local
+ * node) so the RemoteWebDriver mode can run on a single box without external services.
+ *
+ * Started by DriverFactory for -Dgrid.url=local; node slot count from -Dgrid.slots (default 4).
+ */
+public final class LocalGrid {
+    private static Server<?> server;
+    private static String url;
+
+    private LocalGrid() {}
+
+    public static synchronized String start(int slots) {
+        if (server != null) return url;
+        int port = freePort();
+        Map<String, Object> config = Map.of(
+            "server", Map.of("port", port),
+            "node", Map.of(
+                "max-sessions", slots,
+                "override-max-sessions", true,
+                "detect-drivers", true,
+                "selenium-manager", true),
+            // sessions beyond the slot count wait in the grid queue instead of failing fast
+            "sessionqueue", Map.of("session-request-timeout", GridSlots.queueTimeoutSeconds()));
+        server = new Standalone().asServer(new MapConfig(config)).start();
+        url = "http://localhost:" + port;
+        System.out.println("DEBUG: Local Selenium Grid started at " + url + " with " + slots + " slot(s)");
+        Runtime.getRuntime().addShutdownHook(new Thread(LocalGrid::stop, "local-grid-stop"));
+        return url;
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            try { server.stop(); } catch (Exception ignored) {}
+            server = null;
+            url = null;
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        } catch (IOException e) {
+            throw new RuntimeException("No free port for local grid", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+import pages.Waits;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live run metrics in Prometheus text format at http://&lt;metrics.host&gt;:&lt;metrics.port&gt;/metrics.
+ *
+ * Off unless -Dmetrics.port is set (0 picks a free port, printed at start); binds to
+ * -Dmetrics.host, default 127.0.0.1. Started and stopped by SuiteListener. Exposes tests
+ * running/passed/failed/skipped, open driver sessions, commands in flight and their share of the
+ * sessions (utilisation), session acquisition time (including grid slot waits), WebDriver command
+ * rate/latency/errors per command, page-object waits and their timeouts, and the HAR writer queue.
+ */
+public final class MetricsServer {
+    private static final double[] COMMAND_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final double[] ACQUIRE_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    private static final AtomicInteger testsRunning = new AtomicInteger();
+    private static final Map<String, LongAdder> testResults = new ConcurrentHashMap<>();
+    private static final AtomicInteger sessionsOpen = new AtomicInteger();
+    private static final AtomicInteger commandsInFlight = new AtomicInteger();
+    private static final Histogram acquire = new Histogram(ACQUIRE_BUCKETS);
+    private static final Map<String, Histogram> commands = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> commandErrors = new ConcurrentHashMap<>();
+    private static final long startNanos = System.nanoTime();
+    private static HttpServer server;
+
+    private MetricsServer() {}
+
+    public static boolean isEnabled() {
+        return System.getProperty("metrics.port") != null;
+    }
+
+    public static synchronized void start() {
+        if (!isEnabled() || server != null) return;
+        String host = System.getProperty("metrics.host", "127.0.0.1");
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, Integer.getInteger("metrics.port", 0)), 0);
+        } catch (IOException e) {
+            System.err.println("DEBUG: Metrics endpoint not started: " + e.getMessage());
+            return;
+        }
+        server.createContext("/metrics", MetricsServer::serve);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+        System.out.println("DEBUG: Metrics at http://" + host + ":" + server.getAddress().getPort() + "/metrics");
+    }
+
+    public static synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        server = null;
+    }
+
+    public static void testStarted() {
+        testsRunning.incrementAndGet();
+    }
+
+    /** result: passed, failed or skipped. */
+    public static void testFinished(String result) {
+        testsRunning.decrementAndGet();
+        testResults.computeIfAbsent(result, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Counts a new session (acquired in acquireNanos); the returned listener times its commands and
+     * sees its quit. Null when metrics are off.
+     */
+    public static WebDriverListener listener(long acquireNanos) {
+        if (!isEnabled()) return null;
+        acquire.observe(acquireNanos / 1e9);
+        sessionsOpen.incrementAndGet();
+        return new CommandListener();
+    }
+
+    /** Times every WebDriver/WebElement call of one session; public for EventFiringDecorator. */
+    public static class CommandListener implements WebDriverListener {
+        private final ThreadLocal<Deque<Long>> started = ThreadLocal.withInitial(ArrayDeque::new);
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            commandsInFlight.incrementAndGet();
+            started.get().push(System.nanoTime());
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            end(method).observe((System.nanoTime() - started.get().pop()) / 1e9);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            if (!DriverFactory.isBrowserCommand(method)) return;
+            end(method).observe((System.nanoTime() - started.get().pop()) / 1e9);
+            commandErrors.computeIfAbsent(method.getName(), k -> new LongAdder()).increment();
+        }
+
+        @Override
+        public void afterQuit(WebDriver driver) {
+            sessionsOpen.decrementAndGet();
+        }
+
+        private Histogram end(Method method) {
+            commandsInFlight.decrementAndGet();
+            return commands.computeIfAbsent(method.getName(), k -> new Histogram(COMMAND_BUCKETS));
+        }
+    }
+
+    private static void serve(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static String render() {
+        StringBuilder sb = new StringBuilder();
+        gauge(sb, "capstone_run_seconds", "Seconds since the suite started.", (System.nanoTime() - startNanos) / 1e9);
+        gauge(sb, "capstone_tests_running", "Tests currently executing.", testsRunning.get());
+        header(sb, "capstone_tests_total", "Finished tests by result.", "counter");
+        for (String result : new String[] {"passed", "failed", "skipped"}) {
+            LongAdder n = testResults.get(result);
+            sb.append("capstone_tests_total{result=\"").append(result).append("\"} ").append(n == null ? 0 : n.sum()).append('\n');
+        }
+
+        int open = sessionsOpen.get();
+        int inFlight = commandsInFlight.get();
+        gauge(sb, "capstone_driver_sessions", "Driver sessions created and not yet quit.", open);
+        gauge(sb, "capstone_driver_commands_in_flight", "WebDriver commands executing right now.", inFlight);
+        gauge(sb, "capstone_driver_utilisation", "Share of open sessions executing a command.", open == 0 ? 0 : Math.min(1.0, (double) inFlight / open));
+        header(sb, "capstone_driver_acquire_seconds", "Time to get a session, including grid slot waits.", "histogram");
+        acquire.write(sb, "capstone_driver_acquire_seconds", "");
+
+        header(sb, "capstone_webdriver_command_seconds", "WebDriver command latency by command.", "histogram");
+        new TreeMap<>(commands).forEach((name, h) -> h.write(sb, "capstone_webdriver_command_seconds", "command=\"" + name + "\""));
+        header(sb, "capstone_webdriver_command_errors_total", "WebDriver commands that threw, by command.", "counter");
+        new TreeMap<>(commandErrors).forEach((name, n) ->
+            sb.append("capstone_webdriver_command_errors_total{command=\"").append(name).append("\"} ").append(n.sum()).append('\n'));
+
+        header(sb, "capstone_explicit_waits_total", "Page-object waits started.", "counter");
+        sb.append("capstone_explicit_waits_total ").append(Waits.waitCount()).append('\n');
+        header(sb, "capstone_explicit_wait_timeouts_total", "Page-object waits that timed out.", "counter");
+        sb.append("capstone_explicit_wait_timeouts_total ").append(Waits.timeoutCount()).append('\n');
+        gauge(sb, "capstone_artifact_queue_depth", "HAR writes queued for the writer thread.", HarRecorder.pendingWrites());
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double value) {
+        header(sb, name, help, "gauge");
+        sb.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) && !Double.isInfinite(v) ? String.valueOf((long) v) : Double.toString(v);
+    }
+
+    /** Cumulative-bucket histogram, as Prometheus expects it. */
+    private static class Histogram {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length];
+            for (int i = 0; i < bounds.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void observe(double seconds) {
+            for (int i = 0; i < bounds.length; i++) {
+                if (seconds <= bounds[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(seconds);
+        }
+
+        void write(StringBuilder sb, String name, String labels) {
+            String sep = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                sb.append(name).append("_bucket{").append(sep).append("le=\"").append(format(bounds[i])).append("\"} ").append(cumulative).append('\n');
+            }
+            long total = count.sum();
+            sb.append(name).append("_bucket{").append(sep).append("le=\"+Inf\"} ").append(total).append('\n');
+            String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+            sb.append(name).append("_sum").append(braces).append(' ').append(format(sum.sum())).append('\n');
+            sb.append(name).append("_count").append(braces).append(' ').append(total).append('\n');
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package utils;
+
+import net.bytebuddy.agent.ByteBuddyAgent;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.asm.Advice;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isSynthetic;
+import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * Runtime instrumentation of pages.* and utils.* methods.
+ *
+ * Nothing is woven until the first listener is added; from then on every page-object
+ * method and utils helper reports "pages.CartPage.getSubtotal"-style signatures with
+ * their duration to the registered listeners (test impact index, timings, ...).
+ */
+public final class PageActionProbe {
+
+    public interface Listener {
+        void onAction(String signature, long durationNanos, Throwable error);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Boolean> dispatching = ThreadLocal.withInitial(() -> false);
+    private static boolean installed;
+
+    private PageActionProbe() {}
+
+    public static synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+        if (!installed) {
+            install();
+            installed = true;
+        }
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Called from the woven advice; must stay public. */
+    public static void exit(String signature, long startNanos, Throwable error) {
+        // listeners live in utils.* themselves, don't report their own calls
+        if (listeners.isEmpty() || dispatching.get()) return;
+        long duration = System.nanoTime() - startNanos;
+        dispatching.set(true);
+        try {
+            for (Listener l : listeners) {
+                try {
+                    l.onAction(signature, duration, error);
+                } catch (Exception e) {
+                    System.err.println("DEBUG: PageActionProbe listener failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    private static void install() {
+        ByteBuddyAgent.install();
+        new AgentBuilder.Default()
+            .disableClassFormatChanges()
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .type(nameStartsWith("pages.").or(nameStartsWith("utils.")
+                .and(not(named(PageActionProbe.class.getName())))
+                .and(not(nameStartsWith(PageActionProbe.class.getName() + "$")))))
+            .transform((builder, type, loader, module, domain) ->
+                builder.visit(Advice.to(TimingAdvice.class).on(isMethod().and(not(isSynthetic())).and(not(isAbstract())))))
+            .installOn(ByteBuddyAgent.getInstrumentation());
+        System.out.println("DEBUG: PageActionProbe instrumentation installed for pages.* and utils.*");
+    }
+
+    public static class TimingAdvice {
+        @Advice.OnMethodEnter
+        public static long enter() {
+            return System.nanoTime();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void exit(@Advice.Origin("#t.#m") String signature,
+                                @Advice.Enter long start,
+                                @Advice.Thrown Throwable error) {
+            PageActionProbe.exit(signature, start, error);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Navigation Timing and Web Vitals (LCP, CLS) of the app under test.
+ *
+ * Every driver.get on a DriverFactory session is captured automatically (see {@link #listener()});
+ * SPA transitions such as the cart drawer or checkout -> confirmation are measured with
+ * {@link #startAction}. Budgets come from testdata/perf-budgets.properties, timings also go to
+ * the DurationStore ("page" kind) so the perf gate tracks them across runs.
+ * Disable with -Dpage.perf=false.
+ */
+public class PagePerformance {
+    public static final Path RESULT_FILE = Paths.get(System.getProperty("user.dir"), "target", "perf", "page-performance.json");
+    private static final String BUDGETS = "testdata/perf-budgets.properties";
+
+    private static final List<Snapshot> snapshots = new CopyOnWriteArrayList<>();
+    // per thread: a test only ever sees the snapshots of its own driver
+    private static final ThreadLocal<Map<String, Snapshot>> latest = ThreadLocal.withInitial(HashMap::new);
+    private static Properties budgets;
+
+    /**
+     * Navigation entry + resource totals, plus LCP and CLS from buffered PerformanceObservers
+     * (neither is exposed through performance.getEntries()). Async so the observers can deliver.
+     * LCP is for page loads only: after an in-page action it would still be the load's paint.
+     */
+    private static final String COLLECT_JS =
+        "var done = arguments[arguments.length - 1], since = arguments[0];"
+        + "var out = {ttfb: -1, dcl: -1, load: -1, lcp: -1, cls: 0, resources: 0, transfer: 0};"
+        + "try {"
+        + "  var nav = performance.getEntriesByType('navigation')[0];"
+        + "  if (nav && since < 0) { out.ttfb = nav.responseStart; out.dcl = nav.domContentLoadedEventEnd;"
+        + "    out.load = nav.loadEventEnd; out.transfer = nav.transferSize || 0; }"
+        + "  var res = performance.getEntriesByType('resource');"
+        + "  for (var i = 0; i < res.length; i++) {"
+        + "    if (res[i].startTime < since) continue;"
+        + "    out.resources++; out.transfer += res[i].transferSize || 0; }"
+        + "  var types = (window.PerformanceObserver && PerformanceObserver.supportedEntryTypes) || [], obs = [];"
+        + "  if (since < 0 && types.indexOf('largest-contentful-paint') >= 0) {"
+        + "    var o1 = new PerformanceObserver(function (l) { var e = l.getEntries(); if (e.length) out.lcp = e[e.length - 1].startTime; });"
+        + "    o1.observe({type: 'largest-contentful-paint', buffered: true}); obs.push(o1); }"
+        + "  if (types.indexOf('layout-shift') >= 0) {"
+        + "    var o2 = new PerformanceObserver(function (l) { l.getEntries().forEach(function (e) {"
+        + "      if (!e.hadRecentInput && e.startTime >= Math.max(since, 0)) out.cls += e.value; }); });"
+        + "    o2.observe({type: 'layout-shift', buffered: true}); obs.push(o2); }"
+        + "  setTimeout(function () { obs.forEach(function (o) { o.disconnect(); }); done(out); }, 50);"
+        + "} catch (e) { out.error = String(e); done(out); }";
+
+    /** Timings of one page load or one in-page action. -1 = not measured. */
+    public static class Snapshot {
+        public final String page;
+        public final String url;
+        public final double ttfbMs, domContentLoadedMs, loadMs, lcpMs, cls, actionMs;
+        public final int resources;
+        public final long transferKb;
+
+        Snapshot(String page, String url, Map<?, ?> raw, double actionMs) {
+            this.page = page;
+            this.url = url;
+            this.ttfbMs = num(raw.get("ttfb"));
+            this.domContentLoadedMs = num(raw.get("dcl"));
+            this.loadMs = num(raw.get("load"));
+            this.lcpMs = num(raw.get("lcp"));
+            this.cls = Math.max(0, num(raw.get("cls")));
+            this.resources = (int) Math.max(0, num(raw.get("resources")));
+            this.transferKb = Math.round(Math.max(0, num(raw.get("transfer"))) / 1024);
+            this.actionMs = actionMs;
+        }
+
+        /** Metric by budget key: ttfb, dcl, load, lcp, cls, action, transferKb. */
+        public double metric(String name) {
+            switch (name) {
+                case "ttfb": return ttfbMs;
+                case "dcl": return domContentLoadedMs;
+                case "load": return loadMs;
+                case "lcp": return lcpMs;
+                case "cls": return cls;
+                case "action": return actionMs;
+                case "transferKb": return transferKb;
+                default: return -1;
+            }
+        }
+
+        JSONObject toJson() {
+            JSONObject o = new JSONObject();
+            o.put("page", page);
+            o.put("url", url);
+            for (String m : METRICS) o.put(m, metric(m));
+            o.put("resources", resources);
+            return o;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(page).append(':');
+            for (String m : METRICS) {
+                double v = metric(m);
+                if (v < 0) continue;
+                sb.append(' ').append(m).append('=').append(m.equals("cls") ? String.format(Locale.ROOT, "%.3f", v) : String.valueOf(Math.round(v)));
+            }
+            return sb.append(" resources=").append(resources).toString();
+        }
+    }
+
+    private static final String[] METRICS = {"ttfb", "dcl", "load", "lcp", "cls", "action", "transferKb"};
+
+    /** In-page action being timed; {@link #end()} once its result is visible. */
+    public static class Action {
+        private final WebDriver driver;
+        private final String page;
+        private final long startNanos = System.nanoTime();
+        private final double startPerfNow;
+
+        private Action(WebDriver driver, String page) {
+            this.driver = driver;
+            this.page = page;
+            double now = 0;
+            try {
+                Object raw = ((JavascriptExecutor) driver).executeScript("return performance.now();");
+                if (raw instanceof Number) now = ((Number) raw).doubleValue();
+            } catch (Exception e) {
+                System.err.println("DEBUG: performance.now() unavailable for " + page + ": " + e.getMessage());
+            }
+            this.startPerfNow = now;
+        }
+
+        public Snapshot end() {
+            return collect(driver, page, startPerfNow, (System.nanoTime() - startNanos) / 1_000_000.0);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("page.perf", "true"));
+    }
+
+    /** Captures the current document's load timings under the given page name. */
+    public static Snapshot capture(WebDriver driver, String page) {
+        return collect(driver, page, -1, -1);
+    }
+
+    public static Action startAction(WebDriver driver, String page) {
+        return new Action(driver, page);
+    }
+
+    /** Listener for EventFiringDecorator: captures after every driver.get of an http(s) page. */
+    public static WebDriverListener listener() {
+        return new NavigationListener();
+    }
+
+    // public: the decorator invokes listener methods reflectively
+    public static class NavigationListener implements WebDriverListener {
+        // a failed capture must not leave the previous load's snapshot as last()
+        @Override
+        public void beforeGet(WebDriver driver, String url) {
+            String page = pageName(url);
+            if (page != null) latest.get().remove(page);
+        }
+
+        @Override
+        public void afterGet(WebDriver driver, String url) {
+            String page = pageName(url);
+            if (page != null) collect(driver, page, -1, -1);
+        }
+    }
+
+    /** Last snapshot recorded for a page on the calling thread, or null. */
+    public static Snapshot last(String page) {
+        return latest.get().get(page);
+    }
+
+    /** Budget violations of a snapshot, empty when within budget. */
+    public static List<String> violations(Snapshot s) {
+        List<String> out = new ArrayList<>();
+        for (String m : METRICS) {
+            String budget = budget(s.page, m);
+            double value = s.metric(m);
+            if (budget == null || value < 0) continue;
+            double limit = Double.parseDouble(budget);
+            if (value > limit) out.add(s.page + " " + m + " " + format(m, value) + " > budget " + format(m, limit));
+        }
+        return out;
+    }
+
+    /** Asserts the last snapshot of a page against its budgets. */
+    public static void assertWithinBudget(String page) {
+        Snapshot s = last(page);
+        if (s == null) throw new AssertionError("No page performance captured for '" + page + "'");
+        assertWithinBudget(s);
+    }
+
+    public static void assertWithinBudget(Snapshot s) {
+        List<String> v = violations(s);
+        if (!v.isEmpty()) {
+            ReportUtils.logFail("Performance budget exceeded: " + String.join("; ", v));
+            throw new AssertionError("Performance budget exceeded: " + String.join("; ", v));
+        }
+        ReportUtils.logPass("Within performance budget: " + s);
+    }
+
+    /** Writes the run's snapshots to target/perf and a "Page performance" test to the Extent report. */
+    public static void report() {
+        if (snapshots.isEmpty()) return;
+        JSONArray all = new JSONArray();
+        for (Snapshot s : snapshots) {
+            JSONObject o = s.toJson();
+            o.put("violations", new JSONArray(violations(s)));
+            all.put(o);
+        }
+        try {
+            Files.createDirectories(RESULT_FILE.getParent());
+            Files.writeString(RESULT_FILE, new JSONObject().put("run", DurationStore.RUN_ID).put("pages", all).toString(2), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write page performance: " + e.getMessage());
+        }
+
+        ReportUtils.createTest("Page performance");
+        for (Snapshot s : snapshots) {
+            List<String> v = violations(s);
+            if (v.isEmpty()) ReportUtils.logPass(s.toString());
+            else ReportUtils.logWarning(s + " | over budget: " + String.join("; ", v));
+        }
+        System.out.println("DEBUG: Page performance (" + snapshots.size() + " snapshots) -> " + RESULT_FILE);
+    }
+
+    private static Snapshot collect(WebDriver driver, String page, double since, double actionMs) {
+        try {
+            Object raw = ((JavascriptExecutor) driver).executeAsyncScript(COLLECT_JS, since);
+            if (!(raw instanceof Map)) return null;
+            Snapshot s = new Snapshot(page, driver.getCurrentUrl(), (Map<?, ?>) raw, actionMs);
+            snapshots.add(s);
+            latest.get().put(page, s);
+            for (String m : new String[] {"ttfb", "load", "lcp", "action"}) {
+                if (s.metric(m) >= 0) DurationStore.record("page", page + " " + m, s.metric(m), true);
+            }
+            List<String> v = violations(s);
+            System.out.println("DEBUG: Page performance " + s + (v.isEmpty() ? "" : " OVER BUDGET " + v));
+            ReportUtils.logInfo("Page performance " + s);
+            if (!v.isEmpty()) ReportUtils.logWarning("Over performance budget: " + String.join("; ", v));
+            return s;
+        } catch (Exception e) {
+            // measuring must never break the functional flow
+            System.err.println("DEBUG: Page performance not captured for " + page + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // "https://bstackdemo.com/" -> home, ".../checkout?x" -> checkout; null for about:blank, data: etc.
+    static String pageName(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) return null;
+            String path = uri.getPath() == null ? "" : uri.getPath().replaceAll("^/+|/+$", "");
+            if (path.isEmpty()) return "home";
+            return path.split("/")[0].toLowerCase(Locale.ROOT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static synchronized String budget(String page, String metric) {
+        if (budgets == null) {
+            budgets = new Properties();
+            try (InputStream in = PagePerformance.class.getClassLoader().getResourceAsStream(BUDGETS)) {
+                if (in != null) budgets.load(in);
+            } catch (Exception e) {
+                System.err.println("DEBUG: Could not load " + BUDGETS + ": " + e.getMessage());
+            }
+        }
+        String key = page + "." + metric;
+        String v = System.getProperty("budget." + key, budgets.getProperty(key));
+        return v != null ? v : budgets.getProperty("default." + metric);
+    }
+
+    private static String format(String metric, double v) {
+        if (metric.equals("cls")) return String.format(Locale.ROOT, "%.3f", v);
+        return Math.round(v) + (metric.equals("transferKb") ? " KB" : " ms");
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : -1;
+    }
+}
@@ -0,0 +1,246 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Captures a PDF the page downloads, in memory, on the session the test already uses (no
+ * relaunch with download prefs, nothing written to disk).
+ *
+ * Arm it right before the click that downloads. Two sources are watched:
+ * - PDFs generated in the page (jsPDF and the like): a hook on URL.createObjectURL keeps every
+ *   application/pdf Blob, and anchor clicks on data:application/pdf URLs; blob and data URLs
+ *   never reach the network, so this is the only way to see them. Works on every driver.
+ * - PDFs served over HTTP (Chrome only): Fetch intercepts document responses, keeps the body of
+ *   any served as application/pdf and answers the tab with 204, and
+ *   Browser.setDownloadBehavior(deny) keeps anything else from landing on disk.
+ * State is per session, so parallel sessions never see each other's documents.
+ */
+public class PdfCapture implements AutoCloseable {
+    private static final String HOOK =
+        "(function () {"
+        + " if (window.__pdfCapture) return;"
+        + " var store = window.__pdfCapture = [], urls = {}, create = URL.createObjectURL;"
+        + " URL.createObjectURL = function (o) {"
+        + "  var u = create.apply(this, arguments);"
+        + "  if (o && /pdf/i.test(o.type || '')) { store.push(o); urls[u] = true; }"
+        + "  return u; };"
+        // a download of something already captured doesn't need to reach the browser's download manager
+        + " var click = HTMLAnchorElement.prototype.click;"
+        + " HTMLAnchorElement.prototype.click = function () {"
+        + "  var h = this.href || '';"
+        + "  if (/^data:application\\/pdf/i.test(h)) { store.push(h); return; }"
+        + "  if (urls[h]) return;"
+        + "  return click.apply(this, arguments); };"
+        + "})();";
+
+    // drains one captured document as a data: URL (FileReader for Blobs)
+    private static final String TAKE =
+        "var done = arguments[arguments.length - 1], store = window.__pdfCapture;"
+        + " if (!store || !store.length) { done(null); return; }"
+        + " var o = store.shift();"
+        + " if (typeof o === 'string') { done(o); return; }"
+        + " var r = new FileReader();"
+        + " r.onload = function () { done(r.result); };"
+        + " r.onerror = function () { done(null); };"
+        + " r.readAsDataURL(o);";
+
+    // one Fetch listener per DevTools connection, routed to whichever capture is armed on it
+    private static final Map<DevTools, AtomicReference<PdfCapture>> routes = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ExecutorService responder = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "pdf-capture");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final WebDriver driver;
+    private final DevTools devTools;
+    private final LinkedBlockingQueue<Pdf> captured = new LinkedBlockingQueue<>();
+    private String scriptId;
+
+    /** A captured document; source is the response URL, or "page" for in-page Blobs. */
+    public static class Pdf {
+        public final String source;
+        public final byte[] bytes;
+
+        Pdf(String source, byte[] bytes) {
+            this.source = source;
+            this.bytes = bytes;
+        }
+
+        public InputStream stream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return "PDF from " + source + " (" + bytes.length + " bytes)";
+        }
+    }
+
+    private PdfCapture(WebDriver driver, DevTools devTools) {
+        this.driver = driver;
+        this.devTools = devTools;
+    }
+
+    /** Starts capturing on this session; close() (try-with-resources) restores normal downloads. */
+    public static PdfCapture arm(WebDriver driver) {
+        DevTools devTools = null;
+        if (driver instanceof HasDevTools) {
+            try {
+                devTools = ((HasDevTools) driver).getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+            } catch (Exception e) {
+                System.err.println("DEBUG: No DevTools for PDF capture, page hook only: " + e.getMessage());
+                devTools = null;
+            }
+        }
+        PdfCapture capture = new PdfCapture(driver, devTools);
+        if (devTools != null) capture.intercept();
+        ((JavascriptExecutor) driver).executeScript(HOOK);
+        return capture;
+    }
+
+    private void intercept() {
+        AtomicReference<PdfCapture> route = routes.computeIfAbsent(devTools, d -> {
+            AtomicReference<PdfCapture> r = new AtomicReference<>();
+            // replying from the connection thread would block it on its own response
+            d.addListener(event("Fetch.requestPaused"), e -> responder.execute(() -> {
+                PdfCapture current = r.get();
+                if (current != null) current.onPaused(e);
+                else send(d, "Fetch.continueRequest", Map.of("requestId", e.get("requestId")));
+            }));
+            return r;
+        });
+        route.set(this);
+        send(devTools, "Browser.setDownloadBehavior", Map.of("behavior", "deny"));
+        send(devTools, "Fetch.enable", Map.of("patterns", List.of(
+            Map.of("urlPattern", "*", "resourceType", "Document", "requestStage", "Response"),
+            Map.of("urlPattern", "*", "resourceType", "Other", "requestStage", "Response"))));
+        Map<String, Object> added = devTools.send(new Command<>("Page.addScriptToEvaluateOnNewDocument", Map.of("source", HOOK),
+            input -> input.read(Json.MAP_TYPE)));
+        Object id = added.get("identifier");
+        scriptId = id == null ? null : String.valueOf(id);
+    }
+
+    private void onPaused(Map<String, Object> e) {
+        Object requestId = e.get("requestId");
+        try {
+            if (e.get("responseStatusCode") != null && isPdf(e.get("responseHeaders"))) {
+                Map<String, Object> body = devTools.send(new Command<>("Fetch.getResponseBody", Map.of("requestId", requestId),
+                    input -> input.read(Json.MAP_TYPE)));
+                String data = String.valueOf(body.get("body"));
+                byte[] bytes = Boolean.TRUE.equals(body.get("base64Encoded"))
+                    ? Base64.getDecoder().decode(data) : data.getBytes(StandardCharsets.ISO_8859_1);
+                String url = String.valueOf(((Map<?, ?>) e.get("request")).get("url"));
+                captured.add(new Pdf(url, bytes));
+                send(devTools, "Fetch.fulfillRequest", Map.of("requestId", requestId, "responseCode", 204));
+                return;
+            }
+        } catch (Exception ex) {
+            System.err.println("DEBUG: PDF capture could not read response: " + ex.getMessage());
+        }
+        send(devTools, "Fetch.continueRequest", Map.of("requestId", requestId));
+    }
+
+    /** Waits for the next captured document; null if none arrives in time. */
+    public Pdf await(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long pause = 25;
+        while (true) {
+            Pdf pdf = captured.poll();
+            if (pdf == null) pdf = takeFromPage();
+            if (pdf == null) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return null;
+                try {
+                    pdf = captured.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(pause), left), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                pause = Math.min(pause * 2, 250);
+            }
+            if (pdf != null) {
+                System.out.println("DEBUG: Captured " + pdf);
+                return pdf;
+            }
+        }
+    }
+
+    private Pdf takeFromPage() {
+        Object url;
+        try {
+            url = ((JavascriptExecutor) driver).executeAsyncScript(TAKE);
+        } catch (Exception e) {
+            // mid-navigation; the next poll retries
+            return null;
+        }
+        if (!(url instanceof String)) return null;
+        String dataUrl = (String) url;
+        int comma = dataUrl.indexOf(',');
+        String header = dataUrl.substring(0, Math.max(comma, 0));
+        String data = dataUrl.substring(comma + 1);
+        byte[] bytes = header.contains(";base64")
+            ? Base64.getDecoder().decode(data)
+            : URLDecoder.decode(data, StandardCharsets.ISO_8859_1).getBytes(StandardCharsets.ISO_8859_1);
+        return new Pdf("page", bytes);
+    }
+
+    /** Stops intercepting and restores the browser's download behaviour. */
+    @Override
+    public void close() {
+        if (devTools == null) return;
+        AtomicReference<PdfCapture> route = routes.get(devTools);
+        if (route != null) route.compareAndSet(this, null);
+        send(devTools, "Fetch.disable", Map.of());
+        send(devTools, "Browser.setDownloadBehavior", Map.of("behavior", "default"));
+        if (scriptId != null) send(devTools, "Page.removeScriptToEvaluateOnNewDocument", Map.of("identifier", scriptId));
+    }
+
+    private static boolean isPdf(Object headers) {
+        if (!(headers instanceof List)) return false;
+        for (Object h : (List<?>) headers) {
+            if (!(h instanceof Map)) continue;
+            Map<?, ?> header = (Map<?, ?>) h;
+            String name = String.valueOf(header.get("name"));
+            String value = String.valueOf(header.get("value")).toLowerCase();
+            if (name.equalsIgnoreCase("content-type") && value.contains("application/pdf")) return true;
+            if (name.equalsIgnoreCase("content-disposition") && value.contains(".pdf")) return true;
+        }
+        return false;
+    }
+
+    private static void send(DevTools devTools, String method, Map<String, Object> params) {
+        try {
+            devTools.send(new Command<>(method, params));
+        } catch (Exception e) {
+            System.err.println("DEBUG: " + method + " failed: " + e.getMessage());
+        }
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+}
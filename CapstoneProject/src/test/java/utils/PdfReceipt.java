@@ -0,0 +1,451 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Order receipt read from a PDF: its text lines, order number, item lines and total.
+ *
+ * The PDF is read in one pass. Content streams are decoded (FlateDecode or plain) and tokenized
+ * as they are read; only the line being assembled is held in memory. Text positioned on the same
+ * baseline makes up one line. Strings are taken as WinAnsi/Latin-1, which covers the standard
+ * fonts receipt generators such as jsPDF use; embedded-font CID text is not decoded.
+ */
+public class PdfReceipt {
+    private static final Pattern TOTAL = Pattern.compile("(?i)^\\s*(?:order\\s+|grand\\s+)?total\\b[^0-9]*([\\d,]+\\.\\d{2})");
+    private static final Pattern ORDER_NUMBER = Pattern.compile("(?i)order\\s*(?:number|no\\.?|#)\\s*(?:is)?\\s*:?\\s*([A-Za-z0-9-]+)");
+    private static final Pattern ITEM_WITH_QTY = Pattern.compile("(?i)^\\s*(.+?)\\s+(?:quantity|qty|x)\\s*:?\\s*(\\d+)\\b.*?\\$?\\s*([\\d,]+\\.\\d{2})\\s*$");
+    private static final Pattern ITEM = Pattern.compile("(?i)^\\s*(.+?)\\s+\\$\\s*([\\d,]+\\.\\d{2})\\s*$");
+    private static final Pattern NOT_AN_ITEM = Pattern.compile("(?i)^\\s*(sub\\s*-?total|total|tax|shipping|discount)\\b");
+    // streams that hold no page text
+    private static final Pattern SKIP_STREAM = Pattern.compile(
+        "/Length[123]\\b|/Subtype\\s*/(Image|Type1C|CIDFontType0C|OpenType|XML)|/Type\\s*/(XRef|ObjStm|Metadata|EmbeddedFile)");
+
+    public final List<String> lines = new ArrayList<>();
+    public final List<Item> items = new ArrayList<>();
+    public String orderNumber;
+    public BigDecimal total;
+
+    /** One order line; amount is the price printed on it. */
+    public static class Item {
+        public final String name;
+        public final int quantity;
+        public final BigDecimal amount;
+
+        Item(String name, int quantity, BigDecimal amount) {
+            this.name = name;
+            this.quantity = quantity;
+            this.amount = amount;
+        }
+
+        @Override
+        public String toString() {
+            return name + " x" + quantity + " $" + amount;
+        }
+    }
+
+    public static PdfReceipt parse(InputStream pdf) {
+        PdfReceipt receipt = new PdfReceipt();
+        textLines(pdf, receipt::accept);
+        return receipt;
+    }
+
+    private void accept(String line) {
+        lines.add(line);
+        Matcher m;
+        if (orderNumber == null && (m = ORDER_NUMBER.matcher(line)).find()) {
+            orderNumber = m.group(1);
+        } else if ((m = TOTAL.matcher(line)).find()) {
+            total = money(m.group(1));
+        } else if (NOT_AN_ITEM.matcher(line).find()) {
+            // subtotal/tax/shipping lines carry prices but aren't items
+        } else if ((m = ITEM_WITH_QTY.matcher(line)).find()) {
+            items.add(new Item(m.group(1), Integer.parseInt(m.group(2)), money(m.group(3))));
+        } else if ((m = ITEM.matcher(line)).find()) {
+            items.add(new Item(m.group(1), 1, money(m.group(2))));
+        }
+    }
+
+    /** Quantity of the first item whose name contains the given one (case-insensitive); 0 if absent. */
+    public int quantityOf(String name) {
+        for (Item i : items) {
+            if (i.name.toLowerCase().contains(name.toLowerCase())) return i.quantity;
+        }
+        return 0;
+    }
+
+    /** "$ 1,299.00" style text as a BigDecimal; null if it has no amount. */
+    public static BigDecimal money(String text) {
+        if (text == null) return null;
+        Matcher m = Pattern.compile("([\\d,]+(?:\\.\\d+)?)").matcher(text);
+        return m.find() ? new BigDecimal(m.group(1).replace(",", "")) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "Receipt #" + orderNumber + " " + items + " total=" + total;
+    }
+
+    /** Text lines of a PDF in drawing order, handed to the consumer as each one completes. */
+    public static void textLines(InputStream pdf, Consumer<String> sink) {
+        try {
+            PushbackInputStream in = new PushbackInputStream(new BufferedInputStream(pdf), 16);
+            StringBuilder outside = new StringBuilder();
+            int b;
+            while ((b = in.read()) >= 0) {
+                outside.append((char) b);
+                if (outside.length() > 4096) outside.delete(0, outside.length() - 2048);
+                if (!endsWithKeyword(outside, "stream") || endsWithKeyword(outside, "endstream")) continue;
+                int eol = in.read();
+                if (eol == '\r') {
+                    int lf = in.read();
+                    if (lf != '\n' && lf >= 0) in.unread(lf);
+                } else if (eol != '\n') {
+                    if (eol >= 0) in.unread(eol);
+                    continue;
+                }
+                String dict = outside.substring(Math.max(0, outside.lastIndexOf(" obj")));
+                outside.setLength(0);
+                InputStream data = new StreamData(in);
+                if (SKIP_STREAM.matcher(dict).find() || (dict.contains("/Filter") && !dict.contains("/FlateDecode"))) {
+                    data.transferTo(OutputStream.nullOutputStream());
+                } else {
+                    InputStream content = dict.contains("/FlateDecode") ? new InflaterInputStream(data, new Inflater()) : data;
+                    try {
+                        new ContentReader(new PushbackInputStream(new BufferedInputStream(content), 2), sink).run();
+                    } catch (IOException corrupt) {
+                        // a damaged stream only loses its own text
+                    }
+                    data.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read PDF", e);
+        }
+    }
+
+    private static boolean endsWithKeyword(StringBuilder sb, String keyword) {
+        int at = sb.length() - keyword.length();
+        return at >= 0 && sb.indexOf(keyword, at) == at;
+    }
+
+    /** Bytes of one stream object, up to (not including) its endstream keyword. */
+    private static class StreamData extends InputStream {
+        private static final byte[] REST = "ndstream".getBytes(StandardCharsets.ISO_8859_1);
+        private final PushbackInputStream in;
+        private boolean done;
+
+        StreamData(PushbackInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (done) return -1;
+            int b = in.read();
+            if (b < 0) {
+                done = true;
+                return -1;
+            }
+            if (b != 'e') return b;
+            byte[] look = new byte[REST.length];
+            int n = in.readNBytes(look, 0, look.length);
+            if (n == look.length && Arrays.equals(look, REST)) {
+                done = true;
+                return -1;
+            }
+            in.unread(look, 0, n);
+            return b;
+        }
+    }
+
+    /**
+     * Tokenizes a content stream and runs the text operators: Tj/TJ/'/" show text; BT, Td, TD,
+     * T*, TL and Tm move the baseline. A change of baseline ends the current line.
+     */
+    private static class ContentReader {
+        private final PushbackInputStream in;
+        private final Consumer<String> sink;
+        private final List<Object> operands = new ArrayList<>();
+        private final StringBuilder line = new StringBuilder();
+        private double leading;
+        private double y;
+        private double lineY = Double.NaN;
+
+        ContentReader(PushbackInputStream in, Consumer<String> sink) {
+            this.in = in;
+            this.sink = sink;
+        }
+
+        void run() throws IOException {
+            try {
+                Object token;
+                while ((token = next()) != null) {
+                    if (token instanceof Op) operate(((Op) token).name);
+                    else operands.add(token);
+                }
+            } finally {
+                flush();
+            }
+        }
+
+        private void operate(String op) throws IOException {
+            switch (op) {
+                case "BT":
+                    y = 0;
+                    break;
+                case "TL":
+                    leading = num(0);
+                    break;
+                case "Td":
+                    y += num(1);
+                    break;
+                case "TD":
+                    leading = -num(1);
+                    y += num(1);
+                    break;
+                case "Tm":
+                    y = num(5);
+                    break;
+                case "T*":
+                    y -= leading;
+                    break;
+                case "Tj":
+                    show(operands.isEmpty() ? null : operands.get(operands.size() - 1));
+                    break;
+                case "'":
+                case "\"":
+                    y -= leading;
+                    show(operands.isEmpty() ? null : operands.get(operands.size() - 1));
+                    break;
+                case "TJ":
+                    show(operands.isEmpty() ? null : operands.get(operands.size() - 1));
+                    break;
+                case "ID":
+                    skipInlineImage();
+                    break;
+                default:
+                    break;
+            }
+            operands.clear();
+        }
+
+        private void show(Object text) {
+            StringBuilder s = new StringBuilder();
+            if (text instanceof Text) {
+                s.append(((Text) text).value);
+            } else if (text instanceof List) {
+                for (Object part : (List<?>) text) {
+                    if (part instanceof Text) s.append(((Text) part).value);
+                    // a large negative adjustment is a word gap
+                    else if (part instanceof Double && (Double) part < -200 && s.length() > 0 && s.charAt(s.length() - 1) != ' ') s.append(' ');
+                }
+            }
+            if (s.length() == 0) return;
+            if (!Double.isNaN(lineY) && Math.abs(y - lineY) > 0.5) flush();
+            if (line.length() > 0 && line.charAt(line.length() - 1) != ' ' && s.charAt(0) != ' ') line.append(' ');
+            line.append(s);
+            lineY = y;
+        }
+
+        private void flush() {
+            String text = line.toString().trim();
+            line.setLength(0);
+            lineY = Double.NaN;
+            if (!text.isEmpty()) sink.accept(text);
+        }
+
+        private double num(int index) {
+            Object o = index < operands.size() ? operands.get(index) : null;
+            return o instanceof Double ? (Double) o : 0;
+        }
+
+        private Object next() throws IOException {
+            int c = skipSpace();
+            if (c < 0) return null;
+            switch (c) {
+                case '(':
+                    return literal();
+                case '<': {
+                    int d = in.read();
+                    if (d == '<') return new Op("<<");
+                    if (d >= 0) in.unread(d);
+                    return hex();
+                }
+                case '>': {
+                    int d = in.read();
+                    if (d != '>' && d >= 0) in.unread(d);
+                    return new Op(">>");
+                }
+                case '[': {
+                    List<Object> array = new ArrayList<>();
+                    Object t;
+                    while ((t = next()) != null && !(t instanceof Op && ((Op) t).name.equals("]"))) array.add(t);
+                    return array;
+                }
+                case ']':
+                    return new Op("]");
+                case '/':
+                    return new Name(word(-1));
+                default:
+                    break;
+            }
+            if (c == '+' || c == '-' || c == '.' || (c >= '0' && c <= '9')) {
+                String w = word(c);
+                try {
+                    return Double.parseDouble(w);
+                } catch (NumberFormatException e) {
+                    return new Op(w);
+                }
+            }
+            if (c == '\'' || c == '"') return new Op(String.valueOf((char) c));
+            return new Op(word(c));
+        }
+
+        private int skipSpace() throws IOException {
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (c == '%') {
+                    while ((c = in.read()) >= 0 && c != '\n' && c != '\r') { }
+                } else if (!isSpace(c)) {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        private String word(int first) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            if (first >= 0) sb.append((char) first);
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (isSpace(c) || "()<>[]{}/%".indexOf(c) >= 0) {
+                    in.unread(c);
+                    break;
+                }
+                sb.append((char) c);
+            }
+            return sb.toString();
+        }
+
+        private Text literal() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int depth = 1;
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (c == '\\') {
+                    int e = in.read();
+                    switch (e) {
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case '\r': {
+                            int lf = in.read();
+                            if (lf != '\n' && lf >= 0) in.unread(lf);
+                            break;
+                        }
+                        case '\n': break;
+                        default:
+                            if (e >= '0' && e <= '7') {
+                                int v = e - '0';
+                                for (int i = 0; i < 2; i++) {
+                                    int d = in.read();
+                                    if (d < '0' || d > '7') {
+                                        if (d >= 0) in.unread(d);
+                                        break;
+                                    }
+                                    v = v * 8 + (d - '0');
+                                }
+                                sb.append((char) (v & 0xff));
+                            } else if (e >= 0) {
+                                sb.append((char) e);
+                            }
+                    }
+                } else if (c == '(') {
+                    depth++;
+                    sb.append('(');
+                } else if (c == ')') {
+                    if (--depth == 0) break;
+                    sb.append(')');
+                } else {
+                    sb.append((char) c);
+                }
+            }
+            return new Text(sb.toString());
+        }
+
+        private Text hex() throws IOException {
+            StringBuilder digits = new StringBuilder();
+            int c;
+            while ((c = in.read()) >= 0 && c != '>') {
+                if (Character.digit(c, 16) >= 0) digits.append((char) c);
+            }
+            if (digits.length() % 2 == 1) digits.append('0');
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < digits.length(); i += 2) sb.append((char) Integer.parseInt(digits.substring(i, i + 2), 16));
+            return new Text(sb.toString());
+        }
+
+        // inline image data is binary; it ends at whitespace + "EI"
+        private void skipInlineImage() throws IOException {
+            int prev = ' ';
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (c == 'E' && isSpace(prev)) {
+                    int i = in.read();
+                    if (i == 'I') {
+                        int after = in.read();
+                        if (after < 0 || isSpace(after)) return;
+                        in.unread(after);
+                    }
+                    if (i >= 0) in.unread(i);
+                }
+                prev = c;
+            }
+        }
+
+        private static boolean isSpace(int c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0;
+        }
+    }
+
+    private static class Op {
+        final String name;
+
+        Op(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Text {
+        final String value;
+
+        Text(String value) {
+            this.value = value;
+        }
+    }
+
+    private static class Name {
+        final String value;
+
+        Name(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares this run's p95 durations with a rolling baseline of earlier runs.
+ *
+ * Settings (system properties): perf.gate=warn|fail|off (default warn),
+ * perf.baseline.runs (5), perf.threshold (0.25 = +25%), perf.minDeltaMs (200),
+ * perf.minSamples (3 baseline samples per key). The verdict is written to
+ * target/perf/verdict.json and logged to the Extent report. Needs -Dperf.record=true.
+ */
+public class PerfGate {
+    public static final Path VERDICT_FILE = Paths.get(System.getProperty("user.dir"), "target", "perf", "verdict.json");
+
+    public static String mode() {
+        return System.getProperty("perf.gate", "warn").toLowerCase(Locale.ROOT);
+    }
+
+    /** Evaluates the gate; in fail mode throws when a regression is found. */
+    public static JSONObject evaluate() {
+        if (!DurationStore.isEnabled() || mode().equals("off")) return null;
+        int baselineRuns = Integer.parseInt(System.getProperty("perf.baseline.runs", "5"));
+        double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.25"));
+        double minDeltaMs = Double.parseDouble(System.getProperty("perf.minDeltaMs", "200"));
+        int minSamples = Integer.parseInt(System.getProperty("perf.minSamples", "3"));
+
+        List<DurationStore.Sample> history = DurationStore.history();
+        Set<String> runs = new LinkedHashSet<>();
+        for (DurationStore.Sample s : history) runs.add(s.run);
+        List<String> recentRuns = new ArrayList<>(runs);
+        Collections.sort(recentRuns);
+        recentRuns = recentRuns.subList(Math.max(0, recentRuns.size() - baselineRuns), recentRuns.size());
+
+        Map<String, List<Double>> baseline = group(history, new LinkedHashSet<>(recentRuns));
+        Map<String, List<Double>> current = group(DurationStore.currentRun(), null);
+
+        JSONArray regressions = new JSONArray();
+        int compared = 0;
+        for (Map.Entry<String, List<Double>> e : current.entrySet()) {
+            List<Double> base = baseline.get(e.getKey());
+            if (base == null || base.size() < minSamples) continue;
+            compared++;
+            double baseP95 = p95(base);
+            double curP95 = p95(e.getValue());
+            if (curP95 > baseP95 * (1 + threshold) && curP95 - baseP95 > minDeltaMs) {
+                JSONObject r = new JSONObject();
+                r.put("key", e.getKey());
+                r.put("baselineP95Ms", Math.round(baseP95));
+                r.put("currentP95Ms", Math.round(curP95));
+                r.put("ratio", Math.round(curP95 / Math.max(baseP95, 1) * 100) / 100.0);
+                regressions.put(r);
+            }
+        }
+
+        boolean regressed = regressions.length() > 0;
+        JSONObject verdict = new JSONObject();
+        verdict.put("run", DurationStore.RUN_ID);
+        verdict.put("mode", mode());
+        verdict.put("status", !regressed ? "PASS" : mode().equals("fail") ? "FAIL" : "WARN");
+        verdict.put("baselineRuns", recentRuns);
+        verdict.put("threshold", threshold);
+        verdict.put("keysCompared", compared);
+        verdict.put("regressions", regressions);
+        write(verdict);
+        report(verdict);
+
+        if (regressed && mode().equals("fail")) {
+            throw new IllegalStateException("Performance gate failed: " + regressions.length()
+                + " p95 regression(s), see " + VERDICT_FILE);
+        }
+        return verdict;
+    }
+
+    private static Map<String, List<Double>> group(List<DurationStore.Sample> samples, Set<String> runs) {
+        Map<String, List<Double>> byKey = new HashMap<>();
+        for (DurationStore.Sample s : samples) {
+            // failed attempts time out at arbitrary points; keep them out of the comparison
+            if (!s.ok || (runs != null && !runs.contains(s.run))) continue;
+            byKey.computeIfAbsent(s.key(), k -> new ArrayList<>()).add(s.ms);
+        }
+        return byKey;
+    }
+
+    static double p95(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(0.95 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    private static void write(JSONObject verdict) {
+        try {
+            Files.createDirectories(VERDICT_FILE.getParent());
+            Files.writeString(VERDICT_FILE, verdict.toString(2), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write perf verdict: " + e.getMessage());
+        }
+    }
+
+    private static void report(JSONObject verdict) {
+        ReportUtils.createTest("Performance regression gate");
+        String summary = "Status " + verdict.getString("status") + ": " + verdict.getInt("keysCompared")
+            + " timings compared against runs " + verdict.getJSONArray("baselineRuns");
+        JSONArray regressions = verdict.getJSONArray("regressions");
+        if (regressions.length() == 0) {
+            ReportUtils.logPass(summary);
+        } else {
+            for (int i = 0; i < regressions.length(); i++) {
+                JSONObject r = regressions.getJSONObject(i);
+                String msg = r.getString("key") + ": p95 " + r.getLong("baselineP95Ms") + " ms -> "
+                    + r.getLong("currentP95Ms") + " ms (x" + r.getDouble("ratio") + ")";
+                if (verdict.getString("status").equals("FAIL")) ReportUtils.logFail(msg);
+                else ReportUtils.logWarning(msg);
+            }
+            ReportUtils.logInfo(summary);
+        }
+        System.out.println("DEBUG: Performance gate " + verdict.getString("status") + " -> " + VERDICT_FILE);
+    }
+}
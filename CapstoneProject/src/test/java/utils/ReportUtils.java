@@ -4,16 +4,19 @@ import com.aventstack.extentreports.*;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import org.openqa.selenium.*;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 public class ReportUtils {
-    private static ExtentReports extent;
+    private static volatile ExtentReports extent;
     private static ThreadLocal<ExtentTest> testThread = new ThreadLocal<>();
     private static String reportDir;
-    private static String screenshotsDir;
 
     public static synchronized void initReports() {
         if (extent != null) return; // already initialized
@@ -21,8 +24,7 @@ public class ReportUtils {
         try {
             String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
             reportDir = System.getProperty("user.dir") + File.separator + "target" + File.separator + "reports" + File.separator + timestamp;
-            screenshotsDir = reportDir + File.separator + "screenshots";
-            Files.createDirectories(Paths.get(screenshotsDir));
+            Files.createDirectories(Paths.get(reportDir));
 
             ExtentSparkReporter spark = new ExtentSparkReporter(reportDir + File.separator + "extent.html");
             spark.config().setReportName("Automation Test Report");
@@ -50,6 +52,11 @@ public class ReportUtils {
         return testThread.get();
     }
 
+    /** Detaches the thread's current test; later log calls on this thread go nowhere until the next createTest. */
+    public static void endTest() {
+        testThread.remove();
+    }
+
     public static void logInfo(String msg) {
         ExtentTest t = getTest();
         if (t != null) t.info(msg);
@@ -65,30 +72,133 @@ public class ReportUtils {
         if (t != null) t.fail(msg);
     }
 
+    public static void logWarning(String msg) {
+        ExtentTest t = getTest();
+        if (t != null) t.warning(msg);
+    }
+
+    public static void logFail(Throwable error) {
+        ExtentTest t = getTest();
+        if (t != null) t.fail(error);
+    }
+
+    public static void logSkip(String msg) {
+        ExtentTest t = getTest();
+        if (t != null) t.skip(msg);
+    }
+
    
+    /** Screenshot into the ArtifactStore (identical images are stored once); returns its absolute path. */
     public static String captureScreenshot(WebDriver driver, String namePrefix) {
         if (driver == null) return "";
         try {
-            String ts = new SimpleDateFormat("yyyyMMdd_HHmmss_SSS").format(new Date());
-            String fileName = (namePrefix == null || namePrefix.isEmpty() ? "screenshot" : namePrefix) + "_" + ts + ".png";
-            String full = screenshotsDir + File.separator + fileName;
-            File src = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-            Path dest = Paths.get(full);
-            Files.copy(src.toPath(), dest, StandardCopyOption.REPLACE_EXISTING);
-            return dest.toAbsolutePath().toString();
+            String name = namePrefix == null || namePrefix.isEmpty() ? "screenshot" : namePrefix;
+            return attachScreenshot(name, ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)).toAbsolutePath().toString();
         } catch (Exception e) {
             e.printStackTrace();
             return "";
         }
     }
 
-    public static synchronized void flushReports() {
-        if (extent != null) {
-            extent.flush();
-            // clear so future runs initialize a fresh report
-            extent = null;
-            testThread.remove();
+    private static Path attachScreenshot(String name, byte[] png) {
+        Path stored = ArtifactStore.put(name, png, "png");
+        ExtentTest t = getTest();
+        if (t != null) t.info(name, MediaEntityBuilder.createScreenCaptureFromPath(link(stored)).build());
+        return stored;
+    }
+
+    /**
+     * Screenshot of a region (whole viewport when null) compared with its baseline by VisualCompare,
+     * masks blanked out. The window is first sized to VisualCompare.window(), so baselines do not
+     * depend on the machine's screen. Logs the result; on a difference the actual and diff images
+     * are attached. Returns null when the driver cannot take screenshots (fast path), with
+     * -Dvisual=false, or when the viewport has no such baseline (logged as a warning).
+     */
+    public static VisualCompare.Result compareScreenshot(WebDriver driver, String baseline, By region, By... masks) {
+        if (!VisualCompare.isEnabled() || !(driver instanceof TakesScreenshot)) return null;
+        Dimension window = VisualCompare.window();
+        if (!window.equals(driver.manage().window().getSize())) driver.manage().window().setSize(window);
+        String viewport = (String) ((JavascriptExecutor) driver).executeScript(
+            "return window.innerWidth + 'x' + window.innerHeight + '@' + (window.devicePixelRatio || 1) + 'x';");
+        WebElement element = region == null ? null : driver.findElement(region);
+        byte[] png = element != null ? element.getScreenshotAs(OutputType.BYTES) : ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+
+        List<Rectangle> maskRects = new ArrayList<>();
+        if (masks.length > 0) {
+            // viewport CSS pixels -> screenshot pixels, relative to the region
+            double dpr = ((Number) ((JavascriptExecutor) driver).executeScript("return window.devicePixelRatio || 1;")).doubleValue();
+            Map<?, ?> origin = element == null ? Map.of("x", 0, "y", 0) : clientRect(driver, element);
+            for (By mask : masks) {
+                for (WebElement m : driver.findElements(mask)) {
+                    Map<?, ?> r = clientRect(driver, m);
+                    maskRects.add(new Rectangle(
+                        (int) Math.floor((num(r.get("x")) - num(origin.get("x"))) * dpr),
+                        (int) Math.floor((num(r.get("y")) - num(origin.get("y"))) * dpr),
+                        (int) Math.ceil(num(r.get("width")) * dpr) + 1,
+                        (int) Math.ceil(num(r.get("height")) * dpr) + 1));
+                }
+            }
+        }
+
+        VisualCompare.Result result = VisualCompare.compare(baseline, viewport, png, maskRects);
+        if (result == null) {
+            String msg = "Visual " + baseline + ": no baseline for viewport " + viewport + " ("
+                + VisualCompare.baselineFile(viewport, baseline) + "), not compared; record it with -Dvisual.update=true";
+            System.out.println("DEBUG: " + msg);
+            logWarning(msg);
+            attachScreenshot(baseline + "_actual", png);
+            return null;
+        }
+        System.out.println("DEBUG: Visual " + result);
+        if (result.matched) {
+            logPass("Visual " + result);
+        } else {
+            logFail("Visual " + result);
+            attachScreenshot(baseline + "_actual", png);
+            if (result.diff != null) attachScreenshot(baseline + "_diff", VisualCompare.png(result.diff));
         }
+        return result;
+    }
+
+    private static Map<?, ?> clientRect(WebDriver driver, WebElement element) {
+        return (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(
+            "var r = arguments[0].getBoundingClientRect(); return {x: r.left, y: r.top, width: r.width, height: r.height};", element);
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number ? ((Number) o).doubleValue() : 0;
+    }
+
+    /** DOM of the current page into the ArtifactStore, linked from the current test. */
+    public static String capturePageSource(WebDriver driver, String namePrefix) {
+        if (driver == null) return "";
+        try {
+            String name = namePrefix == null || namePrefix.isEmpty() ? "page-source" : namePrefix;
+            Path stored = ArtifactStore.putText(name, driver.getPageSource(), "html");
+            logInfo("Page source: <a href='" + link(stored) + "'>" + name + "</a>");
+            return stored.toAbsolutePath().toString();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /** Link to a file relative to the current report directory (absolute URI without a report). */
+    public static String link(Path file) {
+        if (reportDir != null) {
+            try {
+                return Paths.get(reportDir).relativize(file.toAbsolutePath()).toString().replace(File.separatorChar, '/');
+            } catch (Exception ignored) {}
+        }
+        return file.toUri().toString();
+    }
+
+    /**
+     * Writes the report; one report per run, so it can be flushed again later (SuiteListener
+     * flushes once at suite end, after the suite summaries have been added).
+     */
+    public static synchronized void flushReports() {
+        if (extent != null) extent.flush();
     }
 
    
@@ -0,0 +1,284 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last seconds of every Chrome session as screencast frames in memory and writes them
+ * as a video only when a test fails (target/recordings/&lt;test&gt;.avi, linked from the report).
+ * Opt-in with -Drecording=true: it runs a screencast on every Chrome session.
+ *
+ * Chrome sends a JPEG (Page.startScreencast) only when the page repaints, at reduced size and
+ * quality; frames are decoded and acknowledged on a background thread, at most -Drecording.fps
+ * per second are kept (default 4; a faster repaint replaces the newest frame, so the last state is
+ * never lost) in a ring of -Drecording.seconds (default 30) per session. On failure the frames
+ * the test's sessions (see TestSessions) painted since the test started are muxed, not
+ * re-encoded, into a Motion-JPEG AVI on the writer thread; a passing test costs the screencast
+ * and a few MB per session. Settings: recording.maxWidth (default 800), recording.quality (JPEG,
+ * default 50).
+ */
+public class ScreenRecorder {
+    public static final Path RECORDINGS_DIR = Paths.get(System.getProperty("user.dir"), "target", "recordings");
+
+    private static final ExecutorService frames = daemon("screencast-frames");
+    private static final ExecutorService writer = daemon("recording-writer");
+    private static final Map<WebDriver, ScreenRecorder> recorders = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final long[] at;
+    private final byte[][] jpeg;
+    private final long interval = 1000L / Math.max(1, fps());
+    private int head;
+    private int size;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            writer.shutdown();
+            try { writer.awaitTermination(10, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+        }, "recording-flush"));
+    }
+
+    private ScreenRecorder() {
+        int capacity = Math.max(2, fps() * Integer.getInteger("recording.seconds", 30));
+        at = new long[capacity];
+        jpeg = new byte[capacity][];
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("recording", "false"));
+    }
+
+    private static int fps() {
+        return Integer.getInteger("recording.fps", 4);
+    }
+
+    /** Starts the session's screencast; no-op for drivers without DevTools. */
+    public static void attach(WebDriver session) {
+        if (!isEnabled() || !(session instanceof HasDevTools)) return;
+        try {
+            DevTools devTools = ((HasDevTools) session).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            ScreenRecorder recorder = new ScreenRecorder();
+            // the connection thread only hands the frame over: decoding and the ack happen off it
+            devTools.addListener(new Event<Map<String, Object>>("Page.screencastFrame", input -> input.read(Json.MAP_TYPE)),
+                e -> frames.execute(() -> recorder.onFrame(devTools, e)));
+            int maxWidth = Integer.getInteger("recording.maxWidth", 800);
+            devTools.send(new Command<>("Page.startScreencast", Map.of(
+                "format", "jpeg",
+                "quality", Integer.getInteger("recording.quality", 50),
+                "maxWidth", maxWidth,
+                "maxHeight", maxWidth * 3 / 4)));
+            recorders.put(session, recorder);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Screen recording not available for this session: " + e.getMessage());
+        }
+    }
+
+    private void onFrame(DevTools devTools, Map<String, Object> e) {
+        try {
+            devTools.send(new Command<>("Page.screencastFrameAck", Map.of("sessionId", e.get("sessionId"))));
+        } catch (Exception ignored) {
+            // session gone; nothing more will arrive
+        }
+        Object data = e.get("data");
+        if (data instanceof String) add(System.currentTimeMillis(), Base64.getDecoder().decode((String) data));
+    }
+
+    private synchronized void add(long now, byte[] frame) {
+        int newest = (head + size - 1) % at.length;
+        if (size > 0 && now - at[newest] < interval) {
+            // same time slot: keep the slot's time, show the latest paint
+            jpeg[newest] = frame;
+            return;
+        }
+        if (size == at.length) {
+            head = (head + 1) % at.length;
+            size--;
+        }
+        int slot = (head + size) % at.length;
+        at[slot] = now;
+        jpeg[slot] = frame;
+        size++;
+    }
+
+    // frames since the test started, plus the last one before it (what the screen showed at start)
+    private synchronized List<Object[]> framesSince(long start) {
+        List<Object[]> out = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % at.length;
+            int next = (head + i + 1) % at.length;
+            if (at[slot] >= start || (i + 1 < size && at[next] >= start)) out.add(new Object[] {at[slot], jpeg[slot]});
+        }
+        return out;
+    }
+
+    /**
+     * Queues the recording of each session the calling thread's running test used and that painted
+     * during it; returns the files being written (one per session). Call on failure only.
+     */
+    public static List<Path> save(String testName) {
+        long start = TestSessions.start();
+        long end = System.currentTimeMillis();
+        List<List<Object[]>> clips = new ArrayList<>();
+        for (WebDriver session : TestSessions.used()) {
+            ScreenRecorder r = recorders.get(session);
+            if (r == null) continue;
+            List<Object[]> clip = r.framesSince(start);
+            if (clip.size() > 1 || (!clip.isEmpty() && (long) clip.get(0)[0] >= start)) clips.add(clip);
+        }
+        List<Path> files = new ArrayList<>();
+        String base = testName.replaceAll("[^A-Za-z0-9._-]", "_");
+        for (int i = 0; i < clips.size(); i++) {
+            Path file = RECORDINGS_DIR.resolve(base + (clips.size() > 1 ? "-" + (i + 1) : "") + ".avi");
+            List<Object[]> clip = clips.get(i);
+            files.add(file);
+            writer.submit(() -> {
+                try {
+                    Files.createDirectories(RECORDINGS_DIR);
+                    Files.write(file, mjpegAvi(clip, Math.max(start, (long) clip.get(0)[0]), end, fps()));
+                } catch (Exception e) {
+                    System.err.println("DEBUG: Recording not written to " + file + ": " + e.getMessage());
+                }
+            });
+        }
+        return files;
+    }
+
+    /** {@link #save} and links the recordings from the current report test. */
+    public static List<Path> attachToReport(String testName) {
+        List<Path> files = save(testName);
+        for (Path f : files) {
+            ReportUtils.logInfo("Screen recording: <a href='" + ReportUtils.link(f) + "'>" + f.getFileName() + "</a>");
+        }
+        return files;
+    }
+
+    /**
+     * Motion-JPEG AVI at a constant rate from start to end: every tick shows the newest frame at or
+     * before it; a tick without a new frame is an empty chunk, which players show as a repeat.
+     */
+    static byte[] mjpegAvi(List<Object[]> clip, long start, long end, int fps) {
+        byte[] first = (byte[]) clip.get(0)[1];
+        int[] size = jpegSize(first);
+        long tickMillis = 1000L / fps;
+        int ticks = (int) Math.max(1, (end - start) / tickMillis + 1);
+
+        ByteArrayOutputStream movi = new ByteArrayOutputStream();
+        ByteBuffer index = le(16 * ticks);
+        int maxChunk = 0;
+        int next = 0;
+        for (int t = 0; t < ticks; t++) {
+            long tick = start + t * tickMillis;
+            byte[] frame = null;
+            // the first tick always shows the first frame
+            while (next < clip.size() && (next == 0 || (long) clip.get(next)[0] <= tick)) {
+                frame = (byte[]) clip.get(next++)[1];
+            }
+            byte[] data = frame == null ? new byte[0] : frame;
+            int offset = 4 + movi.size();
+            movi.writeBytes(fourcc("00dc"));
+            movi.writeBytes(le(4).putInt(data.length).array());
+            movi.writeBytes(data);
+            if (data.length % 2 == 1) movi.write(0);
+            index.put(fourcc("00dc")).putInt(data.length > 0 ? 0x10 : 0).putInt(offset).putInt(data.length);
+            maxChunk = Math.max(maxChunk, data.length);
+        }
+
+        ByteBuffer avih = le(56)
+            .putInt((int) (tickMillis * 1000)).putInt(maxChunk * fps).putInt(0).putInt(0x10)
+            .putInt(ticks).putInt(0).putInt(1).putInt(maxChunk)
+            .putInt(size[0]).putInt(size[1]).putInt(0).putInt(0).putInt(0).putInt(0);
+        ByteBuffer strh = le(56)
+            .put(fourcc("vids")).put(fourcc("MJPG")).putInt(0).putShort((short) 0).putShort((short) 0)
+            .putInt(0).putInt(1).putInt(fps).putInt(0).putInt(ticks).putInt(maxChunk).putInt(-1).putInt(0)
+            .putShort((short) 0).putShort((short) 0).putShort((short) size[0]).putShort((short) size[1]);
+        ByteBuffer strf = le(40)
+            .putInt(40).putInt(size[0]).putInt(size[1]).putShort((short) 1).putShort((short) 24)
+            .put(fourcc("MJPG")).putInt(size[0] * size[1] * 3).putInt(0).putInt(0).putInt(0).putInt(0);
+
+        byte[] strl = list("strl", chunk("strh", strh.array()), chunk("strf", strf.array()));
+        byte[] hdrl = list("hdrl", chunk("avih", avih.array()), strl);
+        byte[] moviList = list("movi", movi.toByteArray());
+        byte[] idx1 = chunk("idx1", index.array());
+
+        ByteArrayOutputStream avi = new ByteArrayOutputStream(hdrl.length + moviList.length + idx1.length + 12);
+        avi.writeBytes(fourcc("RIFF"));
+        avi.writeBytes(le(4).putInt(4 + hdrl.length + moviList.length + idx1.length).array());
+        avi.writeBytes(fourcc("AVI "));
+        avi.writeBytes(hdrl);
+        avi.writeBytes(moviList);
+        avi.writeBytes(idx1);
+        return avi.toByteArray();
+    }
+
+    // width and height from the JPEG's start-of-frame marker
+    static int[] jpegSize(byte[] jpeg) {
+        int i = 2;
+        while (i + 9 < jpeg.length) {
+            if ((jpeg[i] & 0xFF) != 0xFF) {
+                i++;
+                continue;
+            }
+            int marker = jpeg[i + 1] & 0xFF;
+            int length = ((jpeg[i + 2] & 0xFF) << 8) | (jpeg[i + 3] & 0xFF);
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                int height = ((jpeg[i + 5] & 0xFF) << 8) | (jpeg[i + 6] & 0xFF);
+                int width = ((jpeg[i + 7] & 0xFF) << 8) | (jpeg[i + 8] & 0xFF);
+                return new int[] {width, height};
+            }
+            i += 2 + length;
+        }
+        return new int[] {0, 0};
+    }
+
+    private static byte[] chunk(String id, byte[] data) {
+        ByteBuffer b = le(8 + data.length + data.length % 2);
+        b.put(fourcc(id)).putInt(data.length).put(data);
+        return b.array();
+    }
+
+    private static byte[] list(String type, byte[]... parts) {
+        int length = 4;
+        for (byte[] p : parts) length += p.length;
+        ByteBuffer b = le(8 + length);
+        b.put(fourcc("LIST")).putInt(length).put(fourcc(type));
+        for (byte[] p : parts) b.put(p);
+        return b.array();
+    }
+
+    private static ByteBuffer le(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] fourcc(String id) {
+        return id.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static ExecutorService daemon(String name) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,262 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Every driver session DriverFactory creates, with the driver/browser processes it spawned.
+ *
+ * - Budget: at most -Dsessions.max live sessions (default 8) per JVM; creating one more fails
+ *   with the list of live sessions and the tests that opened them. LoadRunner raises it to its
+ *   profile's peak user count.
+ * - Leaks: a session opened during a test and still open when the test ends is reported
+ *   against that test (console and report), unless the framework keeps it across tests
+ *   ({@link #keep(WebDriver)}: the BaseTest/TestRunner/Hooks sessions).
+ * - Orphans: the processes of sessions never quit are killed by a shutdown hook. Their PIDs are
+ *   also kept in a PID file outside target/ (-Dsessions.pidFile), so a run that was killed
+ *   outright has its browsers reaped by the next run on the same checkout.
+ *
+ * Processes are found as the JVM's new child processes (chromedriver, geckodriver) and their
+ * descendants (the browsers) right after a session starts; remote and HtmlUnit sessions have none.
+ */
+public final class SessionRegistry {
+    public static final Path PID_FILE = Paths.get(System.getProperty("sessions.pidFile",
+        Paths.get(System.getProperty("java.io.tmpdir"),
+            "capstone-sessions-" + Integer.toHexString(System.getProperty("user.dir").hashCode()) + ".pids").toString()));
+
+    private static final ProcessHandle SELF = ProcessHandle.current();
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static final List<Entry> live = new CopyOnWriteArrayList<>();
+    private static final Set<Long> claimed = Collections.synchronizedSet(new HashSet<>());
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final Map<String, List<String>> leaks = new LinkedHashMap<>();
+    // PID-file lines of other JVMs on this checkout that are still running
+    private static final List<String> foreign = new ArrayList<>();
+
+    static {
+        reapOrphans();
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionRegistry::killAll, "session-reaper"));
+    }
+
+    private SessionRegistry() {}
+
+    /** One session; as its WebDriverListener it sees the quit. */
+    public static class Entry implements WebDriverListener {
+        final int id = ids.incrementAndGet();
+        final String browser;
+        final String openedBy;
+        final Instant opened = Instant.now();
+        final List<ProcessHandle> processes;
+        volatile WebDriver session;
+        volatile boolean kept;
+
+        Entry(String browser, String openedBy, List<ProcessHandle> processes) {
+            this.browser = browser;
+            this.openedBy = openedBy;
+            this.processes = processes;
+        }
+
+        @Override
+        public void afterQuit(WebDriver driver) {
+            closed(this);
+        }
+
+        @Override
+        public String toString() {
+            String pids = processes.isEmpty() ? "" : " pids " + processes.stream().map(p -> String.valueOf(p.pid())).collect(Collectors.joining(","));
+            return "#" + id + " " + browser + pids + " opened by " + (openedBy == null ? "suite setup" : openedBy)
+                + " " + Duration.between(opened, Instant.now()).toSeconds() + "s ago";
+        }
+    }
+
+    public static int maxSessions() {
+        return Integer.getInteger("sessions.max", 8);
+    }
+
+    /** Throws when another session would exceed the budget. Call before launching one. */
+    public static void checkBudget() {
+        if (live.size() >= maxSessions()) {
+            throw new IllegalStateException("Session budget of " + maxSessions() + " reached (-Dsessions.max); live sessions: " + live);
+        }
+    }
+
+    /** Current child processes of this JVM; pass to {@link #register} after the launch. */
+    public static Set<Long> childProcesses() {
+        return SELF.children().map(ProcessHandle::pid).collect(Collectors.toSet());
+    }
+
+    /** Records a session just launched; children not in before are taken as its processes. */
+    public static Entry register(String browser, Set<Long> before) {
+        List<ProcessHandle> processes = new ArrayList<>();
+        SELF.children()
+            .filter(p -> p.isAlive() && !before.contains(p.pid()) && claimed.add(p.pid()))
+            .forEach(p -> {
+                processes.add(p);
+                p.descendants().filter(ProcessHandle::isAlive).forEach(processes::add);
+            });
+        Entry entry = new Entry(browser, currentTest.get(), processes);
+        live.add(entry);
+        writePidFile();
+        return entry;
+    }
+
+    /** The decorated session the test will use, so {@link #keep} can find the entry. */
+    public static WebDriver bind(Entry entry, WebDriver session) {
+        entry.session = session;
+        return session;
+    }
+
+    /** Marks a session the framework holds across tests, so it is never reported as a test's leak. */
+    public static void keep(WebDriver session) {
+        for (Entry e : live) {
+            if (e.session == session) e.kept = true;
+        }
+    }
+
+    private static void closed(Entry entry) {
+        live.remove(entry);
+        for (ProcessHandle p : entry.processes) claimed.remove(p.pid());
+        writePidFile();
+    }
+
+    public static void startTest(String testName) {
+        currentTest.set(testName);
+    }
+
+    /** Ends the thread's test; returns (and logs) the sessions it opened and left open. */
+    public static List<String> endTest() {
+        String test = currentTest.get();
+        currentTest.remove();
+        if (test == null) return List.of();
+        List<String> leaked = live.stream()
+            .filter(e -> !e.kept && test.equals(e.openedBy))
+            .map(Entry::toString)
+            .collect(Collectors.toList());
+        if (!leaked.isEmpty()) {
+            System.out.println("DEBUG: " + test + " left " + leaked.size() + " session(s) open: " + leaked);
+            synchronized (leaks) {
+                leaks.put(test, leaked);
+            }
+        }
+        return leaked;
+    }
+
+    /** Lists the leaking tests in a "Driver sessions" Extent test; nothing when there were none. */
+    public static void report() {
+        Map<String, List<String>> copy;
+        synchronized (leaks) {
+            if (leaks.isEmpty()) return;
+            copy = new LinkedHashMap<>(leaks);
+        }
+        ReportUtils.createTest("Driver sessions");
+        copy.forEach((test, sessions) -> ReportUtils.logWarning(test + " left " + sessions.size() + " session(s) open: " + sessions));
+    }
+
+    // shutdown hook: whatever was never quit, browsers first, then their driver
+    private static void killAll() {
+        for (Entry e : live) {
+            if (!e.processes.isEmpty()) System.err.println("DEBUG: Killing orphaned session " + e);
+            kill(e.processes);
+        }
+        live.clear();
+        writePidFile();
+    }
+
+    private static void kill(List<ProcessHandle> processes) {
+        List<ProcessHandle> reversed = new ArrayList<>(processes);
+        Collections.reverse(reversed);
+        for (ProcessHandle p : reversed) {
+            p.descendants().forEach(ProcessHandle::destroy);
+            p.destroy();
+        }
+        for (ProcessHandle p : reversed) {
+            try {
+                p.onExit().get(2, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                p.destroyForcibly();
+            }
+        }
+    }
+
+    // kills processes listed by JVMs that are gone; lines of live JVMs are kept for them
+    private static void reapOrphans() {
+        if (!Files.exists(PID_FILE)) return;
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(PID_FILE);
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not read session PID file: " + e.getMessage());
+            return;
+        }
+        List<ProcessHandle> orphans = new ArrayList<>();
+        for (String line : lines) {
+            // pid processStartMillis ownerJvmPid ownerJvmStartMillis label
+            String[] f = line.trim().split("\\s+", 5);
+            if (f.length < 4) continue;
+            try {
+                if (isRunning(Long.parseLong(f[2]), Long.parseLong(f[3]))) {
+                    foreign.add(line);
+                    continue;
+                }
+                // the start time guards against a recycled PID
+                long started = Long.parseLong(f[1]);
+                Optional<ProcessHandle> p = ProcessHandle.of(Long.parseLong(f[0]));
+                if (started > 0 && p.isPresent() && startMillis(p.get()) == started) orphans.add(p.get());
+            } catch (NumberFormatException ignored) {
+                // not one of our lines
+            }
+        }
+        if (!orphans.isEmpty()) {
+            System.out.println("DEBUG: Reaping " + orphans.size() + " browser/driver process(es) left by an earlier run: "
+                + orphans.stream().map(p -> p.pid() + " " + p.info().command().orElse("?")).collect(Collectors.toList()));
+            kill(orphans);
+        }
+        writePidFile();
+    }
+
+    private static boolean isRunning(long pid, long startMillis) {
+        Optional<ProcessHandle> p = ProcessHandle.of(pid);
+        return p.isPresent() && p.get().isAlive() && (startMillis < 0 || startMillis(p.get()) == startMillis);
+    }
+
+    private static long startMillis(ProcessHandle p) {
+        return p.info().startInstant().map(Instant::toEpochMilli).orElse(-1L);
+    }
+
+    private static synchronized void writePidFile() {
+        List<String> lines = new ArrayList<>(foreign);
+        String owner = SELF.pid() + " " + startMillis(SELF);
+        for (Entry e : live) {
+            for (ProcessHandle p : e.processes) {
+                lines.add(p.pid() + " " + startMillis(p) + " " + owner + " #" + e.id + " " + e.browser);
+            }
+        }
+        try {
+            if (lines.isEmpty()) {
+                Files.deleteIfExists(PID_FILE);
+            } else {
+                Files.write(PID_FILE, lines);
+            }
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not write session PID file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package utils;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+
+/**
+ * Cucumber plugin feeding scenario and step durations into the DurationStore.
+ */
+public class StepTimingPlugin implements ConcurrentEventListener {
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::onStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onCaseFinished);
+    }
+
+    private void onStepFinished(TestStepFinished event) {
+        if (!(event.getTestStep() instanceof PickleStepTestStep)) return; // hooks
+        PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+        DurationStore.record("step", event.getTestCase().getName() + " > " + step.getStep().getText(),
+            event.getResult().getDuration().toNanos() / 1_000_000.0,
+            event.getResult().getStatus() == Status.PASSED);
+    }
+
+    private void onCaseFinished(TestCaseFinished event) {
+        DurationStore.record("test", "scenario:" + event.getTestCase().getName(),
+            event.getResult().getDuration().toNanos() / 1_000_000.0,
+            event.getResult().getStatus() == Status.PASSED);
+    }
+}
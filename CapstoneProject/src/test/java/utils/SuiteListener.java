@@ -0,0 +1,170 @@
+package utils;
+
+import org.testng.IAnnotationTransformer;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Suite-wide hooks for framework services. Registered in testng.xml.
+ *
+ * Owns the run's Extent report: every TestNG test gets its own report test (Cucumber scenarios
+ * are reported by Cucumber), the suite summaries are added at the end and the report is written
+ * once, in onFinish.
+ */
+public class SuiteListener implements ISuiteListener, ITestListener, IAnnotationTransformer {
+    private static final Map<Class<?>, Set<Method>> selectedByClass = new HashMap<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        ReportUtils.initReports();
+        MetricsServer.start();
+        FlightEvents.start(suite.getName());
+        TestImpact.startRecording();
+        DurationStore.recordPageActions();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        TestImpact.saveIndex();
+        PagePerformance.report();
+        HarRecorder.report();
+        SessionRegistry.report();
+        DurationStore.flush();
+        MetricsServer.stop();
+        FlightEvents.stop();
+        try {
+            PerfGate.evaluate(); // throws in -Dperf.gate=fail mode on regression
+        } finally {
+            ReportUtils.flushReports();
+            ArtifactStore.flush();
+        }
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        MetricsServer.testStarted();
+        TestImpact.startTest(testId(result));
+        // Cucumber scenarios are tracked by Hooks, named after the scenario
+        if (!isCucumber(result)) {
+            ReportUtils.createTest(invocationName(result));
+            TestSessions.startTest(invocationName(result));
+            SessionRegistry.startTest(invocationName(result));
+        }
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        MetricsServer.testFinished("passed");
+        TestImpact.endTest();
+        recordDuration(result);
+        if (isCucumber(result)) return;
+        ReportUtils.logPass("Passed");
+        endTracking();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        MetricsServer.testFinished("failed");
+        TestImpact.endTest();
+        recordDuration(result);
+        if (isCucumber(result)) return;
+        if (result.getThrowable() != null) ReportUtils.logFail(result.getThrowable());
+        else ReportUtils.logFail("Failed");
+        // the buffered browser log and screen recording are only written for failures
+        BrowserLogs.attachToReport(invocationName(result));
+        ScreenRecorder.attachToReport(invocationName(result));
+        endTracking();
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        MetricsServer.testFinished("skipped");
+        TestImpact.endTest();
+        if (isCucumber(result)) return;
+        ReportUtils.logSkip(result.getThrowable() != null ? String.valueOf(result.getThrowable()) : "Skipped");
+        endTracking();
+    }
+
+    // last thing for a TestNG test: logs into its report test, then detaches it and its sessions
+    private static void endTracking() {
+        for (Path har : HarRecorder.endTest()) ReportUtils.logInfo("Network capture: " + HarRecorder.link(har));
+        List<String> leaked = SessionRegistry.endTest();
+        if (!leaked.isEmpty()) ReportUtils.logWarning("Driver sessions left open: " + leaked);
+        TestSessions.endTest();
+        ReportUtils.endTest();
+    }
+
+    private static boolean isCucumber(ITestResult result) {
+        return result.getMethod().getConstructorOrMethod().getDeclaringClass().getName().startsWith("io.cucumber.");
+    }
+
+    private static void recordDuration(ITestResult result) {
+        // Cucumber scenarios are timed per scenario by StepTimingPlugin
+        if (isCucumber(result)) return;
+        DurationStore.record("test", invocationName(result), result.getEndMillis() - result.getStartMillis(),
+            result.getStatus() == ITestResult.SUCCESS);
+    }
+
+    // test id plus data-provider parameters, so each invocation is told apart
+    private static String invocationName(ITestResult result) {
+        String name = testId(result);
+        if (result.getParameters().length > 0) name += Arrays.toString(result.getParameters());
+        return name;
+    }
+
+    public static String testId(ITestResult result) {
+        return result.getMethod().getRealClass().getName() + "." + result.getMethod().getMethodName();
+    }
+
+    /** With -Dimpact.base, disables tests that neither the diff nor their dependencies need. */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        if (testMethod == null || !TestImpact.isSelecting()) return;
+        Class<?> owner = testMethod.getDeclaringClass();
+        if (owner.getName().startsWith("io.cucumber.")) return; // scenarios are filtered in TestRunner
+        if (!selectedByClass.computeIfAbsent(owner, SuiteListener::selectWithDependencies).contains(testMethod)) {
+            System.out.println("DEBUG: Test impact: not affected, disabling " + owner.getName() + "." + testMethod.getName());
+            annotation.setEnabled(false);
+        }
+    }
+
+    // affected tests plus everything they depend on (groups/methods), so dependsOn* still resolves
+    private static Set<Method> selectWithDependencies(Class<?> owner) {
+        Map<String, Set<Method>> byGroup = new HashMap<>();
+        Map<String, Method> byName = new HashMap<>();
+        Deque<Method> queue = new ArrayDeque<>();
+        for (Method m : owner.getDeclaredMethods()) {
+            Test t = m.getAnnotation(Test.class);
+            if (t == null) continue;
+            byName.put(m.getName(), m);
+            for (String g : t.groups()) byGroup.computeIfAbsent(g, k -> new HashSet<>()).add(m);
+            if (TestImpact.isAffected(owner.getName() + "." + m.getName())) queue.add(m);
+        }
+        Set<Method> selected = new HashSet<>();
+        while (!queue.isEmpty()) {
+            Method m = queue.poll();
+            if (!selected.add(m)) continue;
+            Test t = m.getAnnotation(Test.class);
+            for (String g : t.dependsOnGroups()) queue.addAll(byGroup.getOrDefault(g, Set.of()));
+            Arrays.stream(t.dependsOnMethods()).map(byName::get).filter(x -> x != null).forEach(queue::add);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,348 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test impact analysis: which pages.* / utils.* methods each test and scenario exercises.
+ *
+ * Record with -Dimpact.record=true (index goes to target/test-impact/index.json).
+ * Select with -Dimpact.base=&lt;git ref&gt;: only tests whose recorded methods, own code or
+ * feature file changed since that ref are run. Tests missing from the index always run,
+ * and changes outside src/main/java, src/test/java and features run everything.
+ */
+public class TestImpact {
+    private static final Path INDEX_FILE = Paths.get(System.getProperty("user.dir"), "target", "test-impact", "index.json");
+    public static final String SCENARIO_PREFIX = "scenario:";
+
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final ThreadLocal<Set<String>> touched = ThreadLocal.withInitial(HashSet::new);
+    private static final Map<String, Set<String>> recorded = new ConcurrentHashMap<>();
+
+    private static ChangeSet changeSet;
+
+    public static boolean isRecording() {
+        return Boolean.parseBoolean(System.getProperty("impact.record", "false"));
+    }
+
+    public static boolean isSelecting() {
+        String base = System.getProperty("impact.base");
+        return base != null && !base.isBlank();
+    }
+
+    // ---------------- recording ----------------
+
+    public static void startRecording() {
+        if (!isRecording()) return;
+        PageActionProbe.addListener((signature, durationNanos, error) -> {
+            if (currentTest.get() != null) touched.get().add(signature);
+        });
+    }
+
+    /** Starts attributing page actions on this thread to the given test id. */
+    public static void startTest(String testId) {
+        if (!isRecording()) return;
+        endTest();
+        currentTest.set(testId);
+    }
+
+    public static void endTest() {
+        String id = currentTest.get();
+        if (id != null && !touched.get().isEmpty()) {
+            recorded.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).addAll(touched.get());
+        }
+        currentTest.remove();
+        touched.get().clear();
+    }
+
+    /** Merges this run's records into the on-disk index (tests run now replace their old entry). */
+    public static synchronized void saveIndex() {
+        if (!isRecording() || recorded.isEmpty()) return;
+        try {
+            JSONObject index = loadIndex();
+            JSONObject tests = index.optJSONObject("tests");
+            if (tests == null) tests = new JSONObject();
+            for (Map.Entry<String, Set<String>> e : recorded.entrySet()) {
+                tests.put(e.getKey(), new JSONArray(new TreeSet<>(e.getValue())));
+            }
+            index.put("tests", tests);
+            Files.createDirectories(INDEX_FILE.getParent());
+            Files.writeString(INDEX_FILE, index.toString(2), StandardCharsets.UTF_8);
+            System.out.println("DEBUG: Test impact index updated for " + recorded.size() + " tests: " + INDEX_FILE);
+            recorded.clear();
+        } catch (Exception e) {
+            System.err.println("DEBUG: Could not save test impact index: " + e.getMessage());
+        }
+    }
+
+    private static JSONObject loadIndex() throws Exception {
+        if (!Files.exists(INDEX_FILE)) return new JSONObject();
+        return new JSONObject(Files.readString(INDEX_FILE, StandardCharsets.UTF_8));
+    }
+
+    // ---------------- selection ----------------
+
+    /** True when the test (TestNG "pkg.Class.method" or scenario id) must run for the current diff. */
+    public static synchronized boolean isAffected(String testId) {
+        if (!isSelecting()) return true;
+        if (changeSet == null) changeSet = computeChangeSet(System.getProperty("impact.base"));
+        return changeSet.affects(testId);
+    }
+
+    /**
+     * "scenario:features/X.feature#name". The feature is taken relative to src/test/resources
+     * (or the classpath), so an index recorded on one checkout or CI agent matches on another.
+     */
+    public static String scenarioId(String featureUri, String scenarioName) {
+        return SCENARIO_PREFIX + featurePath(featureUri) + "#" + scenarioName;
+    }
+
+    // file: URIs relative to src/test/resources (else the project root), classpath: without its scheme
+    static String featurePath(String featureUri) {
+        if (featureUri.startsWith("classpath:")) return featureUri.substring("classpath:".length()).replaceFirst("^/+", "");
+        if (!featureUri.startsWith("file:")) return featureUri;
+        try {
+            Path file = Paths.get(URI.create(featureUri)).toAbsolutePath().normalize();
+            Path root = Paths.get(System.getProperty("user.dir")).toAbsolutePath().normalize();
+            Path resources = root.resolve(Paths.get("src", "test", "resources"));
+            Path relative = file.startsWith(resources) ? resources.relativize(file) : file.startsWith(root) ? root.relativize(file) : file;
+            return relative.toString().replace(File.separatorChar, '/');
+        } catch (Exception e) {
+            return featureUri;
+        }
+    }
+
+    private static ChangeSet computeChangeSet(String baseRef) {
+        ChangeSet cs = new ChangeSet();
+        try {
+            cs.index = loadIndex().optJSONObject("tests");
+            Map<String, List<int[]>> hunks = gitDiff(baseRef);
+            for (Map.Entry<String, List<int[]>> e : hunks.entrySet()) {
+                cs.addFile(e.getKey(), e.getValue());
+            }
+            System.out.println("DEBUG: Test impact vs " + baseRef + ": changed=" + cs.changed
+                + (cs.runAll ? " (run all: " + cs.runAllReason + ")" : ""));
+        } catch (Exception e) {
+            System.err.println("DEBUG: Test impact selection unavailable, running everything: " + e.getMessage());
+            cs.runAll = true;
+            cs.runAllReason = e.getMessage();
+        }
+        return cs;
+    }
+
+    private static final Pattern FILE_HEADER = Pattern.compile("^\\+\\+\\+ (?:b/)?(.+)$");
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    /** path (relative to the project dir) -> changed line ranges in the working tree version */
+    private static Map<String, List<int[]>> gitDiff(String baseRef) throws Exception {
+        Process p = new ProcessBuilder("git", "diff", "-U0", "--relative", "--no-color", baseRef, "--", ".")
+            .redirectErrorStream(true).start();
+        Map<String, List<int[]>> result = new HashMap<>();
+        String file = null;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                Matcher fm = FILE_HEADER.matcher(line);
+                if (line.startsWith("--- ") && line.endsWith("/dev/null")) continue;
+                if (fm.matches()) {
+                    file = fm.group(1).equals("/dev/null") ? null : fm.group(1);
+                    if (file != null) result.putIfAbsent(file, new ArrayList<>());
+                    continue;
+                }
+                if (line.startsWith("diff --git")) {
+                    // deleted files have no +++ path; fall back to the a/ path
+                    String[] parts = line.split(" ");
+                    file = parts[parts.length - 1].replaceFirst("^b/", "");
+                    result.putIfAbsent(file, new ArrayList<>());
+                    continue;
+                }
+                Matcher hm = HUNK.matcher(line);
+                if (hm.find() && file != null) {
+                    int start = Integer.parseInt(hm.group(1));
+                    int count = hm.group(2) == null ? 1 : Integer.parseInt(hm.group(2));
+                    // pure deletions (count 0) still touch the surrounding member
+                    result.get(file).add(new int[] { start, start + Math.max(count, 1) - 1 });
+                }
+            }
+        }
+        if (p.waitFor() != 0) throw new IllegalStateException("git diff " + baseRef + " failed");
+        return result;
+    }
+
+    private static class ChangeSet {
+        final Set<String> changed = new LinkedHashSet<>();       // "pkg.Class.method" or "pkg.Class.*"
+        final Set<String> changedFeatures = new HashSet<>();
+        boolean allScenarios;
+        boolean runAll;
+        String runAllReason;
+        JSONObject index;
+
+        void addFile(String path, List<int[]> ranges) throws Exception {
+            String p = path.replace('\\', '/');
+            String className = null;
+            if (p.startsWith("src/main/java/") && p.endsWith(".java")) className = p.substring(14, p.length() - 5).replace('/', '.');
+            else if (p.startsWith("src/test/java/") && p.endsWith(".java")) className = p.substring(14, p.length() - 5).replace('/', '.');
+
+            if (className != null) {
+                if (className.startsWith("stepDefinitions.") || className.startsWith("runners.")) allScenarios = true;
+                Path src = Paths.get(System.getProperty("user.dir"), p);
+                if (!Files.exists(src)) {
+                    changed.add(className + ".*");
+                    return;
+                }
+                List<String> lines = Files.readAllLines(src, StandardCharsets.UTF_8);
+                for (int[] r : ranges) {
+                    for (int ln = r[0]; ln <= r[1]; ln++) changed.add(enclosingMember(className, lines, ln));
+                }
+            } else if (p.startsWith("src/test/resources/features/")) {
+                changedFeatures.add(p.substring("src/test/resources/".length()));
+            } else {
+                runAll = true;
+                runAllReason = p;
+            }
+        }
+
+        boolean affects(String testId) {
+            if (runAll) return true;
+            if (testId.startsWith(SCENARIO_PREFIX)) {
+                if (allScenarios) return true;
+                for (String f : changedFeatures) if (testId.contains(f + "#")) return true;
+            } else {
+                String testClass = testId.substring(0, testId.lastIndexOf('.'));
+                if (changed.contains(testId) || changed.contains(testClass + ".*")) return true;
+                // helpers/data providers inside the test class: treat as class-wide
+                for (String c : changed) {
+                    if (c.startsWith(testClass + ".") && (index == null || !index.has(c))) return true;
+                }
+            }
+            JSONArray used = index == null ? null : index.optJSONArray(testId);
+            if (used == null) return true; // never recorded: cannot prove it is unaffected
+            for (int i = 0; i < used.length(); i++) {
+                String sig = used.getString(i);
+                String owner = sig.substring(0, sig.lastIndexOf('.'));
+                String outer = owner.contains("$") ? owner.substring(0, owner.indexOf('$')) : owner;
+                if (changed.contains(sig) || changed.contains(owner + ".*") || changed.contains(outer + ".*")) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final Pattern TYPE_DECL = Pattern.compile("\\b(class|interface|enum)\\s+(\\w+)");
+    private static final Pattern METHOD_DECL = Pattern.compile(
+        "^\\s*(?:@\\w+(?:\\([^)]*\\))?\\s+)*(?:(?:public|protected|private|static|final|synchronized|abstract|native|default)\\s+)*"
+        + "(?:<[^>]+>\\s+)?[\\w.$<>\\[\\],? ]+\\s+(\\w+)\\s*\\(");
+    private static final Set<String> NOT_METHODS = Set.of("if", "for", "while", "switch", "catch", "return", "new", "else", "try", "synchronized");
+
+    /**
+     * Finds the method (or constructor) enclosing a line with a brace-depth scan of the source.
+     * Anything outside a method body (fields, locators, imports) maps to "pkg.Class.*".
+     */
+    static String enclosingMember(String className, List<String> lines, int lineNumber) {
+        TypeStack depthStack = new TypeStack();
+        String typeName = className;
+        int depth = 0;
+        String method = null;
+        int methodDepth = -1;
+        boolean inBlockComment = false;
+
+        for (int i = 0; i < lines.size() && i < lineNumber; i++) {
+            String line = lines.get(i);
+            String code = stripNonCode(line, inBlockComment);
+            inBlockComment = code.endsWith("\u0000");
+            code = code.replace("\u0000", "");
+
+            if (method == null && depth == depthStack.peekBodyDepth()) {
+                Matcher mm = METHOD_DECL.matcher(code);
+                if (mm.find() && !NOT_METHODS.contains(mm.group(1)) && !code.trim().endsWith(";")) {
+                    method = typeName + "." + mm.group(1);
+                    methodDepth = depth;
+                }
+            }
+            Matcher tm = TYPE_DECL.matcher(code);
+            boolean opensType = method == null && tm.find();
+
+            for (char c : code.toCharArray()) {
+                if (c == '{') {
+                    depth++;
+                    if (opensType) {
+                        String nested = tm.group(2);
+                        typeName = depthStack.isEmpty() ? className : typeName + "$" + nested;
+                        depthStack.push(depth, typeName);
+                        opensType = false;
+                    }
+                } else if (c == '}') {
+                    if (method != null && depth == methodDepth + 1 && i + 1 < lineNumber) {
+                        method = null;
+                        methodDepth = -1;
+                    }
+                    if (!depthStack.isEmpty() && depth == depthStack.peekBodyDepth()) {
+                        depthStack.pop();
+                        typeName = depthStack.isEmpty() ? className : depthStack.peekType();
+                    }
+                    depth--;
+                }
+            }
+        }
+        if (method == null) return typeName + ".*";
+        // constructors are not instrumented; a change there affects every user of the class
+        String simpleName = typeName.substring(Math.max(typeName.lastIndexOf('.'), typeName.lastIndexOf('$')) + 1);
+        return method.endsWith("." + simpleName) ? typeName + ".*" : method;
+    }
+
+    // removes string/char literals and comments so braces inside them are not counted;
+    // a trailing \0 marks an unterminated block comment
+    private static String stripNonCode(String line, boolean inBlockComment) {
+        StringBuilder sb = new StringBuilder();
+        boolean inComment = inBlockComment;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            char next = i + 1 < line.length() ? line.charAt(i + 1) : 0;
+            if (inComment) {
+                if (c == '*' && next == '/') { inComment = false; i++; }
+                continue;
+            }
+            if (quote != 0) {
+                if (c == '\\') { i++; continue; }
+                if (c == quote) quote = 0;
+                continue;
+            }
+            if (c == '/' && next == '/') break;
+            if (c == '/' && next == '*') { inComment = true; i++; continue; }
+            if (c == '"' || c == '\'') { quote = c; sb.append(' '); continue; }
+            sb.append(c);
+        }
+        if (inComment) sb.append('\u0000');
+        return sb.toString();
+    }
+
+    /** Tiny stack of (body depth, type name) for nested type tracking. */
+    private static class TypeStack {
+        private final List<Object[]> items = new ArrayList<>();
+        void push(int depth, String type) { items.add(new Object[] { depth, type }); }
+        void pop() { items.remove(items.size() - 1); }
+        boolean isEmpty() { return items.isEmpty(); }
+        int peekBodyDepth() { return items.isEmpty() ? 0 : (Integer) items.get(items.size() - 1)[0]; }
+        String peekType() { return (String) items.get(items.size() - 1)[1]; }
+    }
+}
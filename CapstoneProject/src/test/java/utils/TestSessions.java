@@ -0,0 +1,97 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Which sessions the running test of each thread has used, for the per-session recorders
+ * (BrowserLogs, HarRecorder, ScreenRecorder) to tell parallel tests apart.
+ *
+ * SuiteListener and Hooks start and end a test on the thread that runs it; a session counts as
+ * the test's once that thread sends it a command ({@link #listener()}, installed by DriverFactory
+ * on every instrumented session). Between tests, and for sessions no test drives (load users),
+ * a session has no owner.
+ */
+public final class TestSessions {
+    private static final ThreadLocal<Test> current = new ThreadLocal<>();
+    private static final Map<WebDriver, Test> owners = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private TestSessions() {}
+
+    /** One test: its name, start time and the sessions it used. */
+    private static class Test {
+        final String name;
+        final long start = System.currentTimeMillis();
+        final Set<WebDriver> used = new LinkedHashSet<>();
+
+        Test(String name) {
+            this.name = name;
+        }
+    }
+
+    /** Starts the thread's test; the previous one, if never ended, is ended now. */
+    public static void startTest(String testName) {
+        endTest();
+        current.set(new Test(testName));
+    }
+
+    /** Ends the thread's test; its sessions are no one's until the next test uses them. */
+    public static void endTest() {
+        Test test = current.get();
+        current.remove();
+        if (test == null) return;
+        synchronized (owners) {
+            for (WebDriver session : test.used) owners.remove(session, test);
+        }
+    }
+
+    /** Name of the thread's running test; null outside a test. */
+    public static String name() {
+        Test test = current.get();
+        return test == null ? null : test.name;
+    }
+
+    /** Start of the thread's running test (epoch ms); now outside a test. */
+    public static long start() {
+        Test test = current.get();
+        return test == null ? System.currentTimeMillis() : test.start;
+    }
+
+    /** Sessions the thread's running test has used, in first-use order. */
+    public static List<WebDriver> used() {
+        Test test = current.get();
+        if (test == null) return List.of();
+        synchronized (owners) {
+            return new ArrayList<>(test.used);
+        }
+    }
+
+    /** Test that is using the session (any thread); null when none is. */
+    public static String ownerOf(WebDriver session) {
+        Test test = owners.get(session);
+        return test == null ? null : test.name;
+    }
+
+    /** Marks each session it is installed on as used by the calling thread's test. */
+    static WebDriverListener listener() {
+        return new WebDriverListener() {
+            @Override
+            public void beforeAnyWebDriverCall(WebDriver driver, Method method, Object[] args) {
+                Test test = current.get();
+                if (test == null) return;
+                synchronized (owners) {
+                    if (test.used.add(driver)) owners.put(driver, test);
+                }
+            }
+        };
+    }
+}
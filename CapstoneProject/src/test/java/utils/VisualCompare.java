@@ -0,0 +1,263 @@
+package utils;
+
+import org.openqa.selenium.Dimension;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tile-based screenshot comparison against baselines in
+ * src/test/resources/testdata/baselines/&lt;viewport&gt;/, one directory per viewport size and pixel
+ * ratio (e.g. 1366x657@1x), since a screenshot only matches one taken at the same size.
+ *
+ * Both images are cut into tiles (-Dvisual.tile, default 32px) and each tile is hashed in parallel;
+ * equal hashes skip the tile, so an unchanged screenshot costs one pass over its pixels. Only
+ * changed tiles are compared pixel by pixel (channel tolerance -Dvisual.tolerance, default 24) on
+ * the fork-join pool. Masked rectangles (clocks, order numbers, user names) are blanked in both
+ * images first. A missing baseline is not a match: the comparison is skipped with a warning.
+ * -Dvisual.update=true records (or re-records) the baselines from the actual images, to be
+ * committed with the change that alters the page.
+ */
+public class VisualCompare {
+    public static final Path BASELINES = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "testdata", "baselines");
+    private static final int DIFF_COLOR = 0xFF0000;
+
+    /** Outcome of one comparison; diff marks differing pixels in red (null when matched). */
+    public static class Result {
+        public final String name;
+        public final boolean matched;
+        public final boolean baselineRecorded;
+        public final int tiles;
+        public final int changedTiles;
+        public final long diffPixels;
+        public final double diffRatio;
+        public final BufferedImage diff;
+
+        Result(String name, boolean matched, boolean baselineRecorded, int tiles, int changedTiles, long diffPixels,
+               double diffRatio, BufferedImage diff) {
+            this.name = name;
+            this.matched = matched;
+            this.baselineRecorded = baselineRecorded;
+            this.tiles = tiles;
+            this.changedTiles = changedTiles;
+            this.diffPixels = diffPixels;
+            this.diffRatio = diffRatio;
+            this.diff = diff;
+        }
+
+        @Override
+        public String toString() {
+            if (baselineRecorded) return name + ": baseline recorded";
+            return String.format(Locale.ROOT, "%s: %s, %d/%d tiles changed, %d px (%.3f%%)", name,
+                matched ? "matched" : "DIFFERS", changedTiles, tiles, diffPixels, diffRatio * 100);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visual", "true"));
+    }
+
+    /** Window size screenshots are compared at: -Dvisual.window, default 1366x768. */
+    public static Dimension window() {
+        String[] wh = System.getProperty("visual.window", "1366x768").toLowerCase(Locale.ROOT).split("x");
+        return new Dimension(Integer.parseInt(wh[0].trim()), Integer.parseInt(wh[1].trim()));
+    }
+
+    public static Path baselineFile(String viewport, String name) {
+        return BASELINES.resolve(viewport).resolve(name + ".png");
+    }
+
+    /**
+     * Compares a PNG screenshot with the named baseline of the viewport ("1366x657@1x"); with
+     * -Dvisual.update=true records it instead. Null when there is no baseline to compare with.
+     */
+    public static Result compare(String name, String viewport, byte[] png, List<Rectangle> masks) {
+        Path baselineFile = baselineFile(viewport, name);
+        try {
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+            if (Boolean.getBoolean("visual.update")) {
+                Files.createDirectories(baselineFile.getParent());
+                Files.write(baselineFile, png);
+                System.out.println("DEBUG: Visual baseline recorded: " + baselineFile);
+                return new Result(name, true, true, 0, 0, 0, 0, null);
+            }
+            if (!Files.exists(baselineFile)) return null;
+            return compare(name, ImageIO.read(baselineFile.toFile()), actual, masks);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not compare screenshot " + name, e);
+        }
+    }
+
+    public static Result compare(String name, BufferedImage baseline, BufferedImage actual, List<Rectangle> masks) {
+        int w = actual.getWidth(), h = actual.getHeight();
+        if (baseline.getWidth() != w || baseline.getHeight() != h) {
+            System.out.println("DEBUG: Visual " + name + ": size " + w + "x" + h + " != baseline "
+                + baseline.getWidth() + "x" + baseline.getHeight());
+            return new Result(name, false, false, 0, 0, (long) w * h, 1.0, actual);
+        }
+        int tile = Integer.getInteger("visual.tile", 32);
+        int tolerance = Integer.getInteger("visual.tolerance", 24);
+        double maxRatio = Double.parseDouble(System.getProperty("visual.maxDiffRatio", "0.002"));
+
+        int[] expected = pixels(baseline, masks);
+        int[] got = pixels(actual, masks);
+        int cols = (w + tile - 1) / tile, rows = (h + tile - 1) / tile;
+
+        long[] hashA = new long[cols * rows];
+        long[] hashB = new long[cols * rows];
+        ForkJoinPool.commonPool().invoke(new HashTiles(expected, got, w, h, tile, cols, hashA, hashB, 0, rows));
+
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < hashA.length; i++) if (hashA[i] != hashB[i]) changed.add(i);
+        if (changed.isEmpty()) return new Result(name, true, false, hashA.length, 0, 0, 0, null);
+
+        int[] marks = Arrays.copyOf(got, got.length);
+        long diffPixels = ForkJoinPool.commonPool().invoke(
+            new DiffTiles(expected, got, marks, w, h, tile, cols, tolerance, changed, 0, changed.size()));
+        double ratio = diffPixels / (double) ((long) w * h);
+        BufferedImage diff = null;
+        boolean matched = ratio <= maxRatio;
+        if (!matched) {
+            diff = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            diff.setRGB(0, 0, w, h, marks, 0, w);
+        }
+        return new Result(name, matched, false, hashA.length, changed.size(), diffPixels, ratio, diff);
+    }
+
+    public static byte[] png(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not encode image", e);
+        }
+    }
+
+    // RGB without alpha, masked rectangles zeroed so they can never differ
+    private static int[] pixels(BufferedImage image, List<Rectangle> masks) {
+        int w = image.getWidth(), h = image.getHeight();
+        int[] px = image.getRGB(0, 0, w, h, null, 0, w);
+        for (int i = 0; i < px.length; i++) px[i] &= 0xFFFFFF;
+        if (masks != null) {
+            for (Rectangle m : masks) {
+                Rectangle r = m.intersection(new Rectangle(0, 0, w, h));
+                if (r.isEmpty()) continue;
+                for (int y = r.y; y < r.y + r.height; y++) Arrays.fill(px, y * w + r.x, y * w + r.x + r.width, 0);
+            }
+        }
+        return px;
+    }
+
+    /** FNV-1a over the tiles of a band of tile rows, for both images. */
+    private static class HashTiles extends RecursiveAction {
+        private final int[] a, b;
+        private final int w, h, tile, cols, fromRow, toRow;
+        private final long[] hashA, hashB;
+
+        HashTiles(int[] a, int[] b, int w, int h, int tile, int cols, long[] hashA, long[] hashB, int fromRow, int toRow) {
+            this.a = a;
+            this.b = b;
+            this.w = w;
+            this.h = h;
+            this.tile = tile;
+            this.cols = cols;
+            this.hashA = hashA;
+            this.hashB = hashB;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow > 1) {
+                int mid = (fromRow + toRow) >>> 1;
+                invokeAll(new HashTiles(a, b, w, h, tile, cols, hashA, hashB, fromRow, mid),
+                    new HashTiles(a, b, w, h, tile, cols, hashA, hashB, mid, toRow));
+                return;
+            }
+            int y0 = fromRow * tile, y1 = Math.min(y0 + tile, h);
+            for (int c = 0; c < cols; c++) {
+                int x0 = c * tile, x1 = Math.min(x0 + tile, w);
+                hashA[fromRow * cols + c] = hash(a, x0, x1, y0, y1);
+                hashB[fromRow * cols + c] = hash(b, x0, x1, y0, y1);
+            }
+        }
+
+        private long hash(int[] px, int x0, int x1, int y0, int y1) {
+            long hash = 0xcbf29ce484222325L;
+            for (int y = y0; y < y1; y++) {
+                for (int i = y * w + x0, end = y * w + x1; i < end; i++) {
+                    hash = (hash ^ px[i]) * 0x100000001b3L;
+                }
+            }
+            return hash;
+        }
+    }
+
+    /** Pixel diff of the changed tiles; counts pixels beyond tolerance and paints them red in marks. */
+    private static class DiffTiles extends RecursiveTask<Long> {
+        private final int[] a, b, marks;
+        private final int w, h, tile, cols, tolerance, from, to;
+        private final List<Integer> tiles;
+
+        DiffTiles(int[] a, int[] b, int[] marks, int w, int h, int tile, int cols, int tolerance,
+                  List<Integer> tiles, int from, int to) {
+            this.a = a;
+            this.b = b;
+            this.marks = marks;
+            this.w = w;
+            this.h = h;
+            this.tile = tile;
+            this.cols = cols;
+            this.tolerance = tolerance;
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 4) {
+                int mid = (from + to) >>> 1;
+                DiffTiles left = new DiffTiles(a, b, marks, w, h, tile, cols, tolerance, tiles, from, mid);
+                left.fork();
+                long right = new DiffTiles(a, b, marks, w, h, tile, cols, tolerance, tiles, mid, to).compute();
+                return left.join() + right;
+            }
+            long count = 0;
+            for (int t = from; t < to; t++) {
+                int index = tiles.get(t);
+                int x0 = (index % cols) * tile, y0 = (index / cols) * tile;
+                int x1 = Math.min(x0 + tile, w), y1 = Math.min(y0 + tile, h);
+                for (int y = y0; y < y1; y++) {
+                    for (int i = y * w + x0, end = y * w + x1; i < end; i++) {
+                        int p = a[i], q = b[i];
+                        if (p == q) continue;
+                        if (Math.abs((p >> 16 & 0xFF) - (q >> 16 & 0xFF)) > tolerance
+                            || Math.abs((p >> 8 & 0xFF) - (q >> 8 & 0xFF)) > tolerance
+                            || Math.abs((p & 0xFF) - (q & 0xFF)) > tolerance) {
+                            marks[i] = DIFF_COLOR;
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+Feature: Checkout across users, products and shipping addresses
+
+  # Examples are a pairwise covering array of the Journey sheet in testdata/Domains.xlsx;
+  # regenerate with utils.CoveringArray after editing the sheet.
+  @fastpath
+  Scenario Outline: Checkout as <user> with <product> to <province>
+    Given user launches browser
+    And user logs in with "<user>" and "testingisfun99"
+    When user has "<product>" in the cart
+    And user proceeds to checkout
+    And user ships to "<address>", "<province>" "<postCode>"
+    Then user should reach the confirmation page
+
+    # covering: testdata/Domains.xlsx#Journey strength=2
+    Examples:
+      | user                   | product        | address             | province  | postCode |
+      | demouser               | iPhone 12 Mini | 123 Demo St         | CA        | 90001    |
+      | demouser               | Galaxy S20     | 42 Long Road, Apt 7 | Ontario   | K1A 0B1  |
+      | demouser               | Pixel 4        | 1 Infinite Loop     | Karnataka | 90001    |
+      | demouser               | One Plus 8     | 123 Demo St         | Ontario   | K1A 0B1  |
+      | image_not_loading_user | iPhone 12 Mini | 42 Long Road, Apt 7 | Karnataka | K1A 0B1  |
+      | image_not_loading_user | Galaxy S20     | 1 Infinite Loop     | CA        | K1A 0B1  |
+      | image_not_loading_user | Pixel 4        | 123 Demo St         | Ontario   | 90001    |
+      | image_not_loading_user | One Plus 8     | 42 Long Road, Apt 7 | CA        | 90001    |
+      | existing_orders_user   | iPhone 12 Mini | 1 Infinite Loop     | Ontario   | 90001    |
+      | existing_orders_user   | Galaxy S20     | 123 Demo St         | Karnataka | K1A 0B1  |
+      | existing_orders_user   | Pixel 4        | 42 Long Road, Apt 7 | CA        | K1A 0B1  |
+      | existing_orders_user   | One Plus 8     | 1 Infinite Loop     | Karnataka | K1A 0B1  |
+      | fav_user               | iPhone 12 Mini | 123 Demo St         | CA        | 90001    |
+      | fav_user               | Galaxy S20     | 42 Long Road, Apt 7 | Ontario   | K1A 0B1  |
+      | fav_user               | Pixel 4        | 1 Infinite Loop     | Karnataka | 90001    |
+      | fav_user               | One Plus 8     | 123 Demo St         | CA        | K1A 0B1  |
+      | demouser               | Galaxy S20     | 42 Long Road, Apt 7 | Ontario   | 90001    |